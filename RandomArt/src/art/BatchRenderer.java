@@ -0,0 +1,154 @@
+package art;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.imageio.ImageIO;
+
+import art.util.Probe;
+import art.util.ProbeSummary;
+
+public class BatchRenderer {
+
+	private final Supplier<? extends Piece> pieces;
+	private final int workers;
+	private final ProbeSummary summary = new ProbeSummary();
+
+	/**
+	 * Creates a renderer that will generate many images of the same piece at once.
+	 * <br> Every image gets its own instance of the piece, since some pieces keep state in fields while generating.
+	 * @param pieces Gives a fresh piece for every image.
+	 * @param workers The amount of threads rendering at the same time. Encoding runs on its own threads next to them.
+	 */
+	public BatchRenderer(Supplier<? extends Piece> pieces, int workers) {
+		if(workers < 1)
+			throw new IllegalArgumentException("Need at least one worker, got " + workers);
+		this.pieces = pieces;
+		this.workers = workers;
+	}
+
+	/**
+	 * Renders every given job, and writes each image to the output of its context as soon as it is done.
+	 * <br> Jobs can have different sizes, they are rendered by the same workers.
+	 * <br> Rendering and encoding are two separate pools, so a worker hands its image over and starts the next seed
+	 * right away while the previous one is written. The amount of images waiting to be written is bounded, so memory
+	 * doesn't grow when encoding is slower than rendering.
+	 * <br> Each job prints its render and encode time, and the whole batch prints its throughput at the end.
+	 * <br> When {@link Probe#enabled} is set, the report of every render is added to {@link #summary()}.
+	 * @param jobs The seeds and sizes to render, each with an output file.
+	 * @return The list of jobs that failed to render or to be written.
+	 * @throws InterruptedException if interrupted while waiting for the batch to finish.
+	 */
+	public List<RenderContext> render(List<RenderContext> jobs) throws InterruptedException {
+		int encoders = Math.max(1, workers/2);
+		ExecutorService renderPool = Executors.newFixedThreadPool(workers);
+		ExecutorService encodePool = Executors.newFixedThreadPool(encoders);
+		Semaphore inFlight = new Semaphore(workers + encoders*2);
+		List<RenderContext> failed = new ArrayList<>();
+		AtomicInteger done = new AtomicInteger();
+		long start = System.nanoTime();
+
+		long pixels = 0;
+		for(RenderContext job : jobs) {
+			if(job.output == null)
+				throw new IllegalArgumentException("Job for seed " + job.seed + " has no output file");
+			pixels += (long) job.size * job.size;
+		}
+
+		for(RenderContext job : jobs) {
+			inFlight.acquire();
+			renderPool.execute(() -> {
+				long a = System.nanoTime();
+				BufferedImage image;
+				try {
+					Piece piece = pieces.get();
+					Probe.begin(piece.getClass().getSimpleName(), job.seed, job.size);
+					image = piece.generate(job);
+					summary.add(Probe.end());
+				} catch (RuntimeException | Error e) {
+					Probe.end();
+					e.printStackTrace();
+					fail(failed, job);
+					inFlight.release();
+					return;
+				}
+				long renderTime = System.nanoTime()-a;
+				encodePool.execute(() -> {
+					long b = System.nanoTime();
+					File file = job.output;
+					try {
+						file.getAbsoluteFile().getParentFile().mkdirs();
+						ImageIO.write(image, "png", file);
+					} catch (IOException | RuntimeException e) {
+						e.printStackTrace();
+						fail(failed, job);
+						return;
+					} finally {
+						inFlight.release();
+					}
+					System.out.println("[" + done.incrementAndGet() + "/" + jobs.size() + "] seed " + job.seed + " at " + job.size + "px: " +
+							renderTime/1_000_000 + "ms to render, " + (System.nanoTime()-b)/1_000_000 + "ms to encode -> " +
+							file.getAbsolutePath());
+				});
+			});
+		}
+
+		renderPool.shutdown();
+		renderPool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		encodePool.shutdown();
+		encodePool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+
+		double seconds = (System.nanoTime()-start) / 1e9;
+		int rendered = jobs.size() - failed.size();
+		System.out.println("Rendered " + rendered + "/" + jobs.size() + " images in " + String.format("%.2f", seconds) + "s, " +
+				String.format("%.2f", rendered/seconds) + " images/s, " + String.format("%.1f", pixels/seconds/1e6) + " Mpx/s with " +
+				workers + " workers and " + encoders + " encoders");
+		return failed;
+	}
+
+	/**
+	 * @return The reports of every render done by this renderer, empty if {@link Probe#enabled} wasn't set.
+	 */
+	public ProbeSummary summary() {
+		return summary;
+	}
+
+	private static void fail(List<RenderContext> failed, RenderContext job) {
+		synchronized (failed) {
+			failed.add(job);
+		}
+	}
+
+	/**
+	 * Parses a list of seeds, either as a range <code>from..to</code> (both included) or as values separated by commas.
+	 * @param text The seeds, for example <code>0..999</code> or <code>12,-5,42</code>.
+	 * @return The seeds, in order.
+	 */
+	public static long[] parseSeeds(String text) {
+		int range = text.indexOf("..");
+		if(range >= 0) {
+			long from = Long.parseLong(text.substring(0, range).trim());
+			long to = Long.parseLong(text.substring(range+2).trim());
+			if(to < from)
+				throw new IllegalArgumentException("Empty seed range " + text);
+			long[] seeds = new long[Math.toIntExact(to-from+1)];
+			for(int i = 0; i < seeds.length; i++)
+				seeds[i] = from + i;
+			return seeds;
+		}
+		String[] parts = text.split(",");
+		long[] seeds = new long[parts.length];
+		for(int i = 0; i < parts.length; i++)
+			seeds[i] = Long.parseLong(parts[i].trim());
+		return seeds;
+	}
+}
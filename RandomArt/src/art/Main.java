@@ -3,18 +3,39 @@ package art;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.List;
 import java.util.Random;
 
 import javax.imageio.ImageIO;
 
 import art.pieces.SexyNoise;
+import art.util.PoissonCache;
+import art.util.Probe;
 
 public class Main {
 
 	public static final int IMAGE_SIZE = 1024;//4096*4;
 	
-	public static void main(String[] args) throws IOException {
+	/**
+	 * Without arguments, generates the piece below for one random seed.
+	 * <br> Arguments can be given to render many seeds at once: <code>Main &lt;piece&gt; &lt;seeds&gt; [workers] [sizes]</code>,
+	 * where piece is the name of a class in art.pieces, seeds is either a range <code>from..to</code> or a comma separated
+	 * list, workers defaults to the amount of cores, and sizes is a comma separated list of image sizes that each seed
+	 * is rendered at, which defaults to IMAGE_SIZE.
+	 * <br> A last argument <code>stats</code> can be a .json or .csv file, to which the timings, allocations and values
+	 * reported by each render are written, summed up as percentiles.
+	 * <br> When the system property <code>poissonCache</code> gives a folder, the Poisson disk points of every seed are
+	 * written there and read back by the next batches rendering the same seeds and sizes.
+	 * <br> A batch exits with status 1 if any image failed to render or to be written.
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if(args.length > 0) {
+			batch(args);
+			return;
+		}
+		
 		long seed = new Random().nextLong();
 		Calendar date = Calendar.getInstance();
 		String fileName = date.get(Calendar.YEAR) + "." +
@@ -29,12 +50,67 @@ public class Main {
 		// put here the piece to generate
 		Piece piece = new SexyNoise();
 		
-		BufferedImage result = piece.generate(seed);
+		Probe.enabled = true;
+		Probe.begin(piece.getClass().getSimpleName(), seed, IMAGE_SIZE);
+		BufferedImage result = piece.generate(new RenderContext(seed, IMAGE_SIZE));
+		System.out.println(Probe.end());
 		
 		System.out.println(new File("generated", fileName).getAbsolutePath());
 		ImageIO.write(result, "png", new File("generated", fileName));
 	}
 	
+	private static void batch(String[] args) throws InterruptedException {
+		if(args.length < 2) {
+			System.out.println("Usage: Main <piece> <from..to | seed,seed,...> [workers] [size,size,...] [stats.json | stats.csv]");
+			return;
+		}
+		Class<? extends Piece> pieceClass;
+		try {
+			pieceClass = Class.forName("art.pieces." + args[0]).asSubclass(Piece.class);
+		} catch (ClassNotFoundException | ClassCastException e) {
+			System.out.println("Unknown piece " + args[0]);
+			return;
+		}
+		long[] seeds = BatchRenderer.parseSeeds(args[1]);
+		int workers = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		String[] sizes = args.length > 3 ? args[3].split(",") : new String[] {IMAGE_SIZE + ""};
+		File stats = args.length > 4 ? new File(args[4]) : null;
+		Probe.enabled = stats != null;
+		if(System.getProperty("poissonCache") != null)
+			PoissonCache.setShared(new PoissonCache(256L << 20, new File(System.getProperty("poissonCache"))));
+		
+		List<RenderContext> jobs = new ArrayList<>();
+		for(long seed : seeds) {
+			for(String size : sizes) {
+				String fileName = args[0] + " " + seed + (sizes.length > 1 ? " " + size.trim() : "") + ".png";
+				jobs.add(new RenderContext(seed, Integer.parseInt(size.trim()), new File("generated", fileName)));
+			}
+		}
+		
+		BatchRenderer renderer = new BatchRenderer(() -> {
+			try {
+				return pieceClass.getDeclaredConstructor().newInstance();
+			} catch (ReflectiveOperationException e) {
+				throw new IllegalStateException("Can't create " + pieceClass.getName(), e);
+			}
+		}, workers);
+		List<RenderContext> failed = renderer.render(jobs);
+		
+		if(stats != null) {
+			try {
+				renderer.summary().write(stats);
+				System.out.println("Wrote stats of " + renderer.summary().reports().size() + " renders to " + stats.getAbsolutePath());
+			} catch (IOException e) {
+				System.out.println("Couldn't write stats to " + stats.getAbsolutePath());
+				e.printStackTrace();
+			}
+		}
+		if(!failed.isEmpty()) {
+			System.err.println(failed.size() + " of " + jobs.size() + " images failed");
+			System.exit(1);
+		}
+	}
+	
 	public static <T> boolean contains(T[] array, T search) {
 		for(T loop : array)
 			if(search.equals(loop))
@@ -3,5 +3,19 @@ package art;
 import java.awt.image.BufferedImage;
 
 public interface Piece {
-	BufferedImage generate(long seed);
+	/**
+	 * Generates the piece for the given seed and size.
+	 * <br> Nothing should be shared between two calls, so that one piece can render different sizes one after the other,
+	 * and several pieces can render at the same time.
+	 * @param context The seed and size of the image to generate.
+	 * @return The BufferedImage, that can then be displayed or saved.
+	 */
+	BufferedImage generate(RenderContext context);
+
+	/**
+	 * Generates the piece at the default size, {@link Main#IMAGE_SIZE}.
+	 */
+	default BufferedImage generate(long seed) {
+		return generate(new RenderContext(seed, Main.IMAGE_SIZE));
+	}
 }
@@ -0,0 +1,32 @@
+package art;
+
+import java.io.File;
+
+public class RenderContext {
+	/** The seed that will generate the pattern. */
+	public final long seed;
+	/** The width and height of the generated image, in pixels. */
+	public final int size;
+	/** Where the image should be written once generated, or null if it isn't written. */
+	public final File output;
+
+	public RenderContext(long seed, int size) {
+		this(seed, size, null);
+	}
+
+	public RenderContext(long seed, int size, File output) {
+		if(size < 1)
+			throw new IllegalArgumentException("Image size must be positive, got " + size);
+		this.seed = seed;
+		this.size = size;
+		this.output = output;
+	}
+
+	public RenderContext withSeed(long seed) {
+		return new RenderContext(seed, size, output);
+	}
+
+	public RenderContext withOutput(File output) {
+		return new RenderContext(seed, size, output);
+	}
+}
@@ -1,6 +1,5 @@
 package art.pieces;
 
-import static art.Main.IMAGE_SIZE;
 import static java.lang.Math.PI;
 import static java.lang.Math.cos;
 import static java.lang.Math.sin;
@@ -9,16 +8,19 @@ import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
 import java.util.Random;
 
-import art.Main;
 import art.Piece;
+import art.RenderContext;
+import art.util.Delaunay;
 import art.util.OpenSimplexNoise;
+import art.util.PointGrid;
+import art.util.PointSet;
+import art.util.PoissonCache;
 import art.util.PoissonDisk;
 import art.util.PoissonDisk.PVector;
+import art.util.Probe;
+import art.util.SegmentHash;
 
 public class Caves implements Piece {
 	/**
@@ -33,14 +35,15 @@ public class Caves implements Piece {
 	 * <br> - the probability of splitting the root, to make it look more "rooty" i guess
 	 * <br> - drawLines, if the root system should be drawn
 	 * <br> - drawCells, if the inner polygons should be drawn
-	 * @param seed The seed that will generate the pattern.
+	 * <br> - delaunayCells, if the polygons should follow the Delaunay triangulation of the points, or link each point to its
+	 * closest neighbours
+	 * @param context The seed and size that will generate the pattern.
 	 * @return The BufferedImage, that can then be displayed or saved. 
 	 */
 	@Override
-	public BufferedImage generate(long seed) {
-		System.out.println("Generating Caves...");
-		long a = System.currentTimeMillis();
-		int IMAGE_SIZE = Main.IMAGE_SIZE;
+	public BufferedImage generate(RenderContext context) {
+		long seed = context.seed;
+		int IMAGE_SIZE = context.size;
 		BufferedImage image = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, BufferedImage.TYPE_INT_ARGB);
 		Graphics2D graphics = (Graphics2D) image.getGraphics();
 		graphics.setColor(Color.WHITE);
@@ -48,18 +51,15 @@ public class Caves implements Piece {
 		graphics.setColor(Color.BLACK);
 		graphics.setStroke(new BasicStroke((float) (IMAGE_SIZE*0.5*0.003), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
 		graphics.drawString(seed + "", 5, 10);
-		System.out.println(System.currentTimeMillis()-a + "ms to generate basic image");
-		a = System.currentTimeMillis();
+		Probe.phase("generate basic image");
 		
 		Random rand = new Random(seed);
 		int drawZone = (int) (IMAGE_SIZE/Math.sqrt(2));
 		int separatingDistance = drawZone/120;
-		ArrayList<PVector> points = PoissonDisk.poissonDiskSampling(seed, separatingDistance, drawZone-separatingDistance);
-		for(PVector p : points) {
-			p.x += (IMAGE_SIZE-drawZone+separatingDistance)/2;
-			p.y += (IMAGE_SIZE-drawZone+separatingDistance)/2;
-		}
-		System.out.println("Found " + points.size() + " points to draw");
+		PointSet points = PoissonCache.shared().points(seed, separatingDistance, drawZone-separatingDistance);
+		points.translate((IMAGE_SIZE-drawZone+separatingDistance)/2, (IMAGE_SIZE-drawZone+separatingDistance)/2);
+		Probe.value("points", points.size());
+		Probe.phase("generate points");
 		
 		OpenSimplexNoise noise = new OpenSimplexNoise(seed);
 
@@ -81,18 +81,18 @@ public class Caves implements Piece {
 		
 		
 		double segmentLength = (double)circleRadius/200;
-		List<Segment> segments = new ArrayList<>();
+		SegmentHash segments = new SegmentHash(segmentLength*2);
 		for(double angle = rand.nextDouble(), i = angle; i < angle+PI*2-PI/20; i+=PI/12) {
 			double startX = Math.cos(i)*circleRadius*irr(i, noise);
 			double startY = Math.sin(i)*circleRadius*irr(i, noise);
 			double dir = i + PI + rand.nextFloat()*0.1f;
 			double endX = startX + Math.cos(dir) * segmentLength;
 			double endY = startY + Math.sin(dir) * segmentLength;
-			segments.add(new Segment(startX, startY, endX, endY));
+			segments.add(startX, startY, endX, endY);
 		}
 		
 		for(int i = 0; i < segments.size(); i++) {
-			Segment seg = segments.get(i);
+			Segment seg = new Segment(segments.x1(i), segments.y1(i), segments.x2(i), segments.y2(i));
 			if(center.dist(seg.x2, seg.y2) < segmentLength)
 				continue;
 			double angle = Math.atan2(seg.y2-seg.y1, seg.x2-seg.x1);
@@ -105,10 +105,10 @@ public class Caves implements Piece {
 					
 					Segment s1 = new Segment(seg.x2, seg.y2, seg.x2+cos(angle1)*segmentLength, seg.y2+sin(angle1)*segmentLength);
 					Segment s2 = new Segment(seg.x2, seg.y2, seg.x2+cos(angle2)*segmentLength, seg.y2+sin(angle2)*segmentLength);
-					if(canPlace(s1, segments, segmentLength*1.5) && canPlace(s2, segments, segmentLength*1.5)) {
+					if(canPlace(s1, segments, segmentLength*1.5, IMAGE_SIZE) && canPlace(s2, segments, segmentLength*1.5, IMAGE_SIZE)) {
 						added = true;
-						segments.add(s1);
-						segments.add(s2);
+						add(segments, s1);
+						add(segments, s2);
 					}
 				}
 			}
@@ -123,8 +123,8 @@ public class Caves implements Piece {
 					double newAngle = (randAngle*balance + correctAngle)/(balance+1);
 					
 					Segment s = new Segment(seg.x2, seg.y2, seg.x2+cos(newAngle)*segmentLength, seg.y2+sin(newAngle)*segmentLength);
-					if(canPlace(s, segments, segmentLength*1.5)) {
-						segments.add(s);
+					if(canPlace(s, segments, segmentLength*1.5, IMAGE_SIZE)) {
+						add(segments, s);
 						added = true;
 					}
 				}
@@ -134,68 +134,50 @@ public class Caves implements Piece {
 		
 		boolean drawLines = true;
 		if(drawLines)
-			for(Segment seg : segments)
-				graphics.drawLine(center.x+(int) seg.x1, center.y+(int) seg.y1, center.x+(int) seg.x2, center.y+(int) seg.y2); 
+			for(int i = 0; i < segments.size(); i++)
+				graphics.drawLine(center.x+(int) segments.x1(i), center.y+(int) segments.y1(i), center.x+(int) segments.x2(i), center.y+(int) segments.y2(i)); 
 		
 		
 		boolean drawCells = false;
 		
 		if(drawCells) {
-			Iterator<PVector> it = points.iterator();
-			while(it.hasNext()) {
-				PVector p = it.next();
-				double angle = Math.atan2(p.y-center.y, p.x-center.x);
+			points.removeIf((index, x, y) -> {
+				double angle = Math.atan2(y-center.y, x-center.x);
 				double irregularity = irr(angle, noise);
-				if(p.dist(center) > irregularity*circleRadius) {
-					it.remove();
-				}
-				
-			}
+				return dist(x, y, center.x, center.y) > irregularity*circleRadius;
+			});
 			
-			for(int i = 0; i < points.size(); i++) {
-				PVector p = points.get(i);
-				
-				PVector[] closest = new PoissonDisk.PVector[6];
-				double[] dists = new double[closest.length];
-				for(int j = 0; j < dists.length; j++) dists[j] = Double.MAX_VALUE;
-				
-				// look for n closest dots
-				for(int j = 0; j < points.size(); j++) {
-					if(i==j) continue;
-					PVector q = points.get(j);
-					double d = p.dist(q);
-					if(d > separatingDistance*2)
-						continue;
-					
-					// check if closer
-					for(int k = 0; k < dists.length; k++) {
-						if(dists[k] > d) {
-							// move everything to the left
-							for(int l = dists.length-1; l > k; l--) {
-								dists[l] = dists[l-1];
-								closest[l] = closest[l-1];
-							}
-							// replace
-							dists[k] = d;
-							closest[k] = q;
-							break;
-						}
-					}
+			boolean delaunayCells = true;
+			long maxDist = separatingDistance*2;
+			if(delaunayCells) {
+				Delaunay triangulation = new Delaunay(points);
+				int[] edges = triangulation.edges();
+				for(int i = 0; i < edges.length; i += 2) {
+					int px = points.x(edges[i]), py = points.y(edges[i]);
+					int qx = points.x(edges[i+1]), qy = points.y(edges[i+1]);
+					if(points.dist2(edges[i], qx, qy) <= maxDist*maxDist && 
+							!segments.anyIntersecting(px-IMAGE_SIZE/2, py-IMAGE_SIZE/2, qx-IMAGE_SIZE/2, qy-IMAGE_SIZE/2))
+						graphics.drawLine(px, py, qx, qy);
 				}
+			} else {
+				PointGrid grid = new PointGrid(points, Math.max(1, separatingDistance));
+				int[] closest = new int[6];
+				long[] dists = new long[closest.length];
+				for(int i = 0; i < points.size(); i++) {
+					int px = points.x(i), py = points.y(i);
+				
+					// look for n closest dots
+					int found = grid.kNearest(px, py, i, closest.length, maxDist*maxDist, closest, dists);
 				
-				drawLoop: for(PVector q : closest) {
-					if(q != null) {
-						for(Segment s : segments)
-							if(intersects(s, p.x-IMAGE_SIZE/2, p.y-IMAGE_SIZE/2, q.x-IMAGE_SIZE/2, q.y-IMAGE_SIZE/2))
-								continue drawLoop;
-						graphics.drawLine(p.x, p.y, q.x, q.y);
+					for(int n = 0; n < found; n++) {
+						int qx = points.x(closest[n]), qy = points.y(closest[n]);
+						if(!segments.anyIntersecting(px-IMAGE_SIZE/2, py-IMAGE_SIZE/2, qx-IMAGE_SIZE/2, qy-IMAGE_SIZE/2))
+							graphics.drawLine(px, py, qx, qy);
 					}
 				}
 			}
 		}
-		System.out.println(System.currentTimeMillis()-a + "ms to draw circle");
-		System.out.println("Done.");
-		System.out.println();
+		Probe.phase("draw circle");
 		
 		return image;
 	}
@@ -212,35 +194,19 @@ public class Caves implements Piece {
 		return Math.sqrt((x-x2)*(x-x2) + (y-y2)*(y-y2));
 	}
 	
-	static boolean canPlace(Segment s, List<Segment> segments, double limit) {
-		if(s.x2 < -IMAGE_SIZE || s.y2 < -IMAGE_SIZE || s.x1 > IMAGE_SIZE || s.y1 > IMAGE_SIZE)
+	static boolean canPlace(Segment s, SegmentHash segments, double limit, int size) {
+		if(s.x2 < -size || s.y2 < -size || s.x1 > size || s.y1 > size)
 			return false;
 		if(dist(0,0,s.x2,s.y2) < limit*4 || dist(0,0,s.x1,s.y1) < dist(0,0,s.x2,s.y2))
 			return false;
-		for(Segment seg : segments)
-			if(
-					s.x1 != seg.x2 && 
-					s.y1 != seg.y2 && 
-					dist(s.x2, s.y2, seg.x2, seg.y2) < limit
-			) 
-				return false;
-		return true;
+		return !segments.anyEndWithin(s.x2, s.y2, limit, seg -> 
+				s.x1 != segments.x2(seg) && 
+				s.y1 != segments.y2(seg)
+		);
 	}
 	
-	static boolean intersects(Segment s, int x1, int y1, int x2, int y2) {
-		double s1_x, s1_y, s2_x, s2_y;
-	    s1_x = s.x2 - s.x1;     s1_y = s.y2 - s.y1;
-	    s2_x = x2 - x1;     	s2_y = y2 - y1;
-
-	    double s_, t;
-	    s_ = (-s1_y * (s.x1 - x1) + s1_x * (s.y1 - y1)) / (-s2_x * s1_y + s1_x * s2_y);
-	    t  = ( s2_x * (s.y1 - y1) - s2_y * (s.x1 - x1)) / (-s2_x * s1_y + s1_x * s2_y);
-
-	    if (s_ >= 0 && s_ <= 1 && t >= 0 && t <= 1)
-	        // Collision detected
-	        return true;
-
-	    return false; // No collision
+	static void add(SegmentHash segments, Segment s) {
+		segments.add(s.x1, s.y1, s.x2, s.y2);
 	}
 	
 	static class Segment {
@@ -4,12 +4,14 @@ import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
-import java.util.List;
 
-import art.Main;
 import art.Piece;
-import art.util.PoissonDisk;
-import art.util.PoissonDisk.PVector;
+import art.RenderContext;
+import art.util.Delaunay;
+import art.util.PointGrid;
+import art.util.PointSet;
+import art.util.PoissonCache;
+import art.util.Probe;
 
 public class Cells implements Piece{
 	/**
@@ -20,17 +22,17 @@ public class Cells implements Piece{
 	 * Some parts can be modified to obtain really nice graphics, exemples:
 	 * <br> - minDistance will change the minimal distance between each points. Reducing it will increase the amount of points, but
 	 * the generation will take a lot more time.
-	 * <br> - the sice of closer[], that will decide about how many neighbours should be found for a certain point. As far as I know
-	 * changing this value won't really change a lot the time required to generate, but obviously the bigger the size, the longer to
-	 * make.
-	 * @param seed The seed that will generate the pattern.
+	 * <br> - the sice of closer[], that will decide about how many neighbours should be found for a certain point. Neighbours are
+	 * found with a {@link PointGrid}, so the time required to generate barely changes with it.
+	 * <br> - delaunay, to link every point to all its neighbours of the Delaunay triangulation instead, which draws triangles.
+	 * <br> - voronoi, to draw the Voronoi cells around the points instead, the cells going out of the square being left out.
+	 * @param context The seed and size that will generate the pattern.
 	 * @return The BufferedImage, that can then be displayed or saved. 
 	 */
 	@Override
-	public BufferedImage generate(long seed) {
-		System.out.println("Generating Cells...");
-		long a = System.currentTimeMillis();
-		int IMAGE_SIZE = Main.IMAGE_SIZE;
+	public BufferedImage generate(RenderContext context) {
+		long seed = context.seed;
+		int IMAGE_SIZE = context.size;
 		BufferedImage image = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, BufferedImage.TYPE_INT_ARGB);
 		Graphics2D graphics = (Graphics2D) image.getGraphics();
 		graphics.setColor(Color.WHITE);
@@ -38,44 +40,61 @@ public class Cells implements Piece{
 		graphics.setColor(Color.BLACK);
 		graphics.setStroke(new BasicStroke((float) (IMAGE_SIZE*0.5*0.003), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
 		graphics.drawString(seed + "", 5, 10);
-		System.out.println(System.currentTimeMillis()-a + "ms to generate basic image");
-		a = System.currentTimeMillis();
+		Probe.phase("generate basic image");
 		
 		int squareSize = (int) (IMAGE_SIZE/Math.sqrt(2)); // Le carre aura une aire egale a la partie blanche
 		int squareStart = (IMAGE_SIZE-squareSize)/2;
 		int minDistance = (int) (IMAGE_SIZE*0.5*0.02); // Distance minimale entre 2 points
-		System.out.println("The minimal distance between two points is " + minDistance + " pixels");
+		Probe.value("min distance", minDistance);
 		
-		List<PVector> poisson = PoissonDisk.poissonDiskSampling(seed, minDistance, squareSize);
-		System.out.println("There are " + poisson.size() + " dots");
-		System.out.println(System.currentTimeMillis()-a + "ms to do math and generate points");
-		a = System.currentTimeMillis();
+		PointSet poisson = PoissonCache.shared().points(seed, minDistance, squareSize);
+		Probe.value("points", poisson.size());
+		Probe.phase("do math and generate points");
 		
-		for(PVector dot : poisson) {
-			PVector[] closer = new PVector[1]; // Nombre de voisins avec lesquels se relier 
-			for(int i = 0; i < closer.length; i++) {
-				double dist = Integer.MAX_VALUE;
-				for(PVector check : poisson) {
-					if(check != dot && !Main.contains(closer, check)) {
-						double dist2 = check.dist(dot);
-						if(dist2 < dist) {
-							dist = dist2;
-							closer[i] = check;
-						}
+		boolean delaunay = false;
+		boolean voronoi = false;
+		
+		if(delaunay || voronoi) {
+			Delaunay triangulation = new Delaunay(poisson);
+			Probe.value("triangles", triangulation.triangleCount());
+			Probe.phase("triangulate");
+			if(delaunay) {
+				int[] edges = triangulation.edges();
+				for(int i = 0; i < edges.length; i += 2)
+					graphics.drawLine(squareStart + poisson.x(edges[i]), squareStart + poisson.y(edges[i]),
+							squareStart + poisson.x(edges[i+1]), squareStart + poisson.y(edges[i+1]));
+			}
+			if(voronoi) {
+				double[] xs = new double[64], ys = new double[64];
+				int[] px = new int[xs.length], py = new int[ys.length];
+				for(int dot = 0; dot < poisson.size(); dot++) {
+					int vertices = triangulation.voronoiCell(dot, xs, ys);
+					boolean inside = vertices > 0;
+					for(int v = 0; v < vertices; v++) {
+						inside &= xs[v] >= 0 && ys[v] >= 0 && xs[v] <= squareSize && ys[v] <= squareSize;
+						px[v] = squareStart + (int) xs[v];
+						py[v] = squareStart + (int) ys[v];
 					}
+					if(inside)
+						graphics.drawPolygon(px, py, vertices);
 				}
 			}
-			int startx = squareStart + dot.x;
-			int starty = squareStart + dot.y;
-			for(PVector neighbour : closer) {
-				int endx = squareStart + neighbour.x;
-				int endy = squareStart + neighbour.y;
-				graphics.drawLine(startx, starty, endx, endy);
+		} else {
+			PointGrid grid = new PointGrid(poisson, Math.max(1, minDistance));
+			int[] closer = new int[1]; // Nombre de voisins avec lesquels se relier 
+			long[] closerDist = new long[closer.length];
+			for(int dot = 0; dot < poisson.size(); dot++) {
+				int found = grid.kNearest(poisson.x(dot), poisson.y(dot), dot, closer.length, closer, closerDist);
+				int startx = squareStart + poisson.x(dot);
+				int starty = squareStart + poisson.y(dot);
+				for(int i = 0; i < found; i++) {
+					int endx = squareStart + poisson.x(closer[i]);
+					int endy = squareStart + poisson.y(closer[i]);
+					graphics.drawLine(startx, starty, endx, endy);
+				}
 			}
 		}
-		System.out.println(System.currentTimeMillis()-a + "ms to draw lines.");
-		System.out.println("Done.");
-		System.out.println();
+		Probe.phase("draw lines");
 		
 		return image;
 	}
@@ -6,8 +6,9 @@ import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.util.Random;
 
-import art.Main;
 import art.Piece;
+import art.RenderContext;
+import art.util.Probe;
 
 public class Circle implements Piece {
 
@@ -27,14 +28,13 @@ public class Circle implements Piece {
 	 * <br> - adjustVariation, will change how the colored line should follow the black one. The closer to 1 it is, the more this line is going
 	 * to be similar to the black one. The closer it is to 0, the straigther it will be. Setting it to something higer than 1 will increase the
 	 * jaggy effect even more, and setting it to -1 will make a mirror of the black line.
-	 * @param seed The seed that will generate the pattern.
+	 * @param context The seed and size that will generate the pattern.
 	 * @return The BufferedImage, that can then be displayed or saved. 
 	 */
 	@Override
-	public BufferedImage generate(long seed) {
-		System.out.println("Generating Circle...");
-		long a = System.currentTimeMillis();
-		int IMAGE_SIZE = Main.IMAGE_SIZE;
+	public BufferedImage generate(RenderContext context) {
+		long seed = context.seed;
+		int IMAGE_SIZE = context.size;
 		Random rand = new Random(seed);
 		BufferedImage image = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, BufferedImage.TYPE_INT_ARGB);
 		Graphics2D graphics = (Graphics2D) image.getGraphics();
@@ -43,8 +43,7 @@ public class Circle implements Piece {
 		graphics.setColor(Color.BLACK);
 		graphics.drawString(seed + "", 5, 10);
 		graphics.setStroke(new BasicStroke((float) (IMAGE_SIZE*0.5*0.003), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
-		System.out.println(System.currentTimeMillis()-a + "ms to generate basic image");
-		a = System.currentTimeMillis();
+		Probe.phase("generate basic image");
 
 		int amountLines = 35; // The amount of lines on the piece
 		int lineLength = 1000; // The length of a line
@@ -54,8 +53,7 @@ public class Circle implements Piece {
 		float hueVariation = 0.2f; // The max difference between two hues
 		double adjustVariation = 0.6; // By how much should the colored line be adjusted
 		double maxVariation = (Math.PI * 2) / (amountLines * 2.5);
-		System.out.println(System.currentTimeMillis() - a + "ms to do math");
-		a = System.currentTimeMillis();
+		Probe.phase("do math");
 
 		for(double i = 0; i < Math.PI * 2 - Math.PI / amountLines; i+= (Math.PI * 2) / amountLines) {
 			int[] xBlack = new int[breaks];
@@ -83,10 +81,8 @@ public class Circle implements Piece {
 			graphics.setColor(Color.BLACK);
 			graphics.drawPolyline(xBlack, yBlack, breaks);
 		}
-		System.out.println(System.currentTimeMillis()-a + "ms to draw lines");
+		Probe.phase("draw lines");
 		
-		System.out.println("Done.");
-		System.out.println();
 		
 		return image;
 	}
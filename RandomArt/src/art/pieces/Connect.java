@@ -5,11 +5,11 @@ import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.geom.CubicCurve2D;
 import java.awt.image.BufferedImage;
-import java.util.Arrays;
 import java.util.Random;
 
-import art.Main;
 import art.Piece;
+import art.RenderContext;
+import art.util.Probe;
 
 public class Connect implements Piece {
 	/**
@@ -18,14 +18,13 @@ public class Connect implements Piece {
 	 * <br> <br>
 	 * Some parts can be modified to obtain really nice graphics, exemples:
 	 * <br> - Nothing :)
-	 * @param seed The seed that will generate the pattern.
+	 * @param context The seed and size that will generate the pattern.
 	 * @return The BufferedImage, that can then be displayed or saved. 
 	 */
 	@Override
-	public BufferedImage generate(long seed) {
-		System.out.println("Generating Connect...");
-		long a = System.currentTimeMillis();
-		int IMAGE_SIZE = Main.IMAGE_SIZE;
+	public BufferedImage generate(RenderContext context) {
+		long seed = context.seed;
+		int IMAGE_SIZE = context.size;
 		Random rand = new Random(seed);
 		BufferedImage image = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, BufferedImage.TYPE_INT_ARGB);
 		Graphics2D graphics = (Graphics2D) image.getGraphics();
@@ -33,8 +32,7 @@ public class Connect implements Piece {
 		graphics.fillRect(0, 0, IMAGE_SIZE, IMAGE_SIZE);
 		graphics.setColor(new Color(0xD0D0D0));
 		graphics.drawString(seed + "", 5, 10);
-		System.out.println(System.currentTimeMillis()-a + "ms to generate basic image");
-		a = System.currentTimeMillis();
+		Probe.phase("generate basic image");
 
 		int squareSize = (int) (IMAGE_SIZE/Math.sqrt(2)); // The square should have the same area as the white part
 		int squareStart = (IMAGE_SIZE-squareSize)/2;
@@ -51,10 +49,8 @@ public class Connect implements Piece {
 			connected[i] = num;
 		}
 		graphics.setStroke(new BasicStroke(lineWidth/2f));
-		System.out.println("The line width is " + lineWidth);
-		System.out.println("Connections are: " + Arrays.toString(connected));
-		System.out.println(System.currentTimeMillis() - a + "ms to do math");
-		a = System.currentTimeMillis();
+		Probe.value("line width", lineWidth);
+		Probe.phase("do math");
 
 		for(int i = 0; i < 9; i++) {
 			graphics.fillOval(
@@ -78,7 +74,7 @@ public class Connect implements Piece {
 				do {
 					p2 = rand.nextInt(9);
 				} while (p2 == last || p2 == connected[i] || p2 == p1);
-				System.out.println("Curve: " + last + "->" + connected[i] + " (" + p1 + "/" + p2 + ")");
+				Probe.count("curves", 1);
 				int p1x = squareStart + distDots * (p1%3);
 				int p1y = squareStart + distDots * (p1/3);
 				int p2x = squareStart + distDots * (p2%3);
@@ -91,10 +87,8 @@ public class Connect implements Piece {
 			last = connected[i];
 		}
 		
-		System.out.println(System.currentTimeMillis()-a + "ms to draw lines");
+		Probe.phase("draw lines");
 		
-		System.out.println("Done.");
-		System.out.println();
 		
 		return image;
 	}
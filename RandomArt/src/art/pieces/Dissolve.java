@@ -6,8 +6,11 @@ import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.util.Random;
 
-import art.Main;
 import art.Piece;
+import art.RenderContext;
+import art.util.Palette;
+import art.util.Probe;
+import art.util.StampCache;
 
 public class Dissolve implements Piece{
 	/**
@@ -22,14 +25,14 @@ public class Dissolve implements Piece{
 	 * <br> - willRespawn, if a row where a circle died can still give circles in the next layer.
 	 * <br> - randomizeColor, if each circle can have a slightly different color from the rest of the layer. This can be used
 	 * to give a nicer, more natural, result.
-	 * @param seed The seed that will generate the pattern.
+	 * <br> All the circles have the same size, so they are drawn by a {@link StampCache}, which keeps big values of amount fast.
+	 * @param context The seed and size that will generate the pattern.
 	 * @return The BufferedImage, that can then be displayed or saved. 
 	 */
 	@Override
-	public BufferedImage generate(long seed) {
-		System.out.println("Generating Lines...");
-		long a = System.currentTimeMillis();
-		int IMAGE_SIZE = Main.IMAGE_SIZE;
+	public BufferedImage generate(RenderContext context) {
+		long seed = context.seed;
+		int IMAGE_SIZE = context.size;
 		Random rand = new Random(seed);
 		BufferedImage image = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, BufferedImage.TYPE_INT_ARGB);
 		Graphics2D graphics = (Graphics2D) image.getGraphics();
@@ -37,8 +40,7 @@ public class Dissolve implements Piece{
 		graphics.fillRect(0, 0, IMAGE_SIZE, IMAGE_SIZE);
 		graphics.setColor(Color.BLACK);
 		graphics.drawString(seed + "", 5, 10);
-		System.out.println(System.currentTimeMillis()-a + "ms to generate basic image");
-		a = System.currentTimeMillis();
+		Probe.phase("generate basic image");
 
 		int squareSize = (int) (IMAGE_SIZE/Math.sqrt(2)); // The square should have the same area as the white part
 		int squareStart = (IMAGE_SIZE-squareSize)/2;
@@ -50,33 +52,32 @@ public class Dissolve implements Piece{
 		boolean willRespawn = true;
 		boolean randomizeColor = true;
 		graphics.setStroke(new BasicStroke(Math.max(1f, circleSize)*0.1f));
-		System.out.println("The circle size is " + circleSize);
-		System.out.println("Inc Hue is " + incHue);
-		System.out.println(System.currentTimeMillis() - a + "ms to do math");
-		a = System.currentTimeMillis();
+		Probe.value("circle size", circleSize);
+		Probe.value("hue increase", incHue);
+		Probe.phase("do math");
 
 		boolean[] isDead = new boolean[amount];
 		for(int i = 0; i < amount; i++)
 			isDead[i] = false;
+		StampCache stamps = new StampCache(image, graphics);
 		for(int i = 0; i < amount; i++) {
-			graphics.setColor(Color.getHSBColor(hue, 1, 0.8f));
+			int color = Palette.hsb(hue, 1, 0.8f);
 			for(int j = 0; j < amount; j++) {
 				if(randomizeColor)
-					graphics.setColor(Color.getHSBColor(
+					color = Palette.hsb(
 							hue + (rand.nextBoolean() ? 1 : -1) * (rand.nextFloat() * 0.04f), // Slightly randomize color
-							1, 0.8f));
+							1, 0.8f);
 				boolean dissolved = rand.nextFloat() > 1f - i * dissolve;
 				if(!willRespawn && dissolved)
 					isDead[j] = true;
 				if(!dissolved)
-					graphics.drawOval(squareStart + j * circleSize, squareStart + i * circleSize, circleSize, circleSize);
+					stamps.drawOval(squareStart + j * circleSize, squareStart + i * circleSize, circleSize, circleSize, color);
 			}
 			hue += incHue/amount;
 		}
-		System.out.println(System.currentTimeMillis()-a + "ms to draw lines");
+		Probe.value("stamp hits", stamps.hits());
+		Probe.phase("draw lines");
 		
-		System.out.println("Done.");
-		System.out.println();
 		
 		return image;
 	}
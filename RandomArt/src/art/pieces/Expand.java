@@ -6,8 +6,11 @@ import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.util.Random;
 
-import art.Main;
 import art.Piece;
+import art.RenderContext;
+import art.util.Palette;
+import art.util.Probe;
+import art.util.StampCache;
 
 public class Expand implements Piece{
 	/**
@@ -22,14 +25,15 @@ public class Expand implements Piece{
 	 * <br> - willRespawn, if a row where a circle died can still give circles in the next layer.
 	 * <br> - randomizeColor, if each circle can have a slightly different color from the rest of the layer. This can be used
 	 * to give a nicer, more natural, result.
-	 * @param seed The seed that will generate the pattern.
+	 * <br> All the circles have the same size, so they are drawn by a {@link StampCache}, which keeps grids of 100 and more
+	 * circles per side fast.
+	 * @param context The seed and size that will generate the pattern.
 	 * @return The BufferedImage, that can then be displayed or saved. 
 	 */
 	@Override
-	public BufferedImage generate(long seed) {
-		System.out.println("Generating Lines...");
-		long a = System.currentTimeMillis();
-		int IMAGE_SIZE = Main.IMAGE_SIZE;
+	public BufferedImage generate(RenderContext context) {
+		long seed = context.seed;
+		int IMAGE_SIZE = context.size;
 		Random rand = new Random(seed);
 		BufferedImage image = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, BufferedImage.TYPE_INT_ARGB);
 		Graphics2D graphics = (Graphics2D) image.getGraphics();
@@ -37,8 +41,7 @@ public class Expand implements Piece{
 		graphics.fillRect(0, 0, IMAGE_SIZE, IMAGE_SIZE);
 		graphics.setColor(Color.BLACK);
 		graphics.drawString(seed + "", 5, 10);
-		System.out.println(System.currentTimeMillis()-a + "ms to generate basic image");
-		a = System.currentTimeMillis();
+		Probe.phase("generate basic image");
 
 		int squareSize = (int) (IMAGE_SIZE/Math.sqrt(2)); // The square should have the same area as the white part
 		int squareStart = (IMAGE_SIZE-squareSize)/2;
@@ -51,37 +54,34 @@ public class Expand implements Piece{
 		float incHue = (rand.nextBoolean() ? 1 : -1) * 0.2f; // The value by which the hue will increase
 		boolean randomizeColor = true;
 		graphics.setStroke(new BasicStroke(Math.max(1f, innerSize)*0.1f));
-		System.out.println("The inner square size is " + innerSize);
-		System.out.println(squareSize + "->" + size + "->" + innerSize + " and " + ((float)squareSize/amount) + " and " + ((float)squareSize/(amount*innerAmount)));
-		System.out.println(System.currentTimeMillis() - a + "ms to do math");
-		a = System.currentTimeMillis();
+		Probe.value("inner size", innerSize);
+		Probe.phase("do math");
 
+		StampCache stamps = new StampCache(image, graphics);
 		for(int i = 0; i < amount; i++) {
 			for(int j = 0; j < amount; j++) {
 				int dist = Math.abs(i - (amount/2)) + Math.abs(j - (amount/2));
-				graphics.setColor(Color.getHSBColor(hue + incHue/amount * dist, 1, 0.8f));
-				System.out.println(i + "/" + j + ", distance: " + dist);
+				int color = Palette.hsb(hue + incHue/amount * dist, 1, 0.8f);
 				float prob = dissolve * dist;
 				for(int ii = 0; ii < innerAmount; ii++) {
 					for(int jj = 0; jj < innerAmount; jj++) {
 						if(rand.nextFloat() > prob) {
 							if(randomizeColor)
-								graphics.setColor(Color.getHSBColor(
+								color = Palette.hsb(
 										hue + incHue/amount * dist + (rand.nextBoolean() ? 1 : -1) * (rand.nextFloat() * 0.04f), 
-										1, 0.8f));
-							graphics.drawOval(
+										1, 0.8f);
+							stamps.drawOval(
 									squareStart + i * size + ii * innerSize, 
 									squareStart + j * size + jj * innerSize, 
-									innerSize, innerSize);
+									innerSize, innerSize, color);
 						}
 					}
 				}
 			}
 		}
-		System.out.println(System.currentTimeMillis()-a + "ms to draw lines");
+		Probe.value("stamp hits", stamps.hits());
+		Probe.phase("draw lines");
 		
-		System.out.println("Done.");
-		System.out.println();
 		
 		return image;
 	}
@@ -3,12 +3,13 @@ package art.pieces;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
-import java.text.DecimalFormat;
-import java.util.ArrayList;
 import java.util.Random;
 
-import art.Main;
 import art.Piece;
+import art.RenderContext;
+import art.util.CirclePacker;
+import art.util.Palette;
+import art.util.Probe;
 
 public class FillCells implements Piece{
 	/**
@@ -23,14 +24,15 @@ public class FillCells implements Piece{
 	 * <br> - minSize, the minimal size of a circle. This value will make sure the last circle are barely visible.
 	 * <br> - full, if the inside of the circle should be white or not.
 	 * <br> - width, if full is true, it will decide on the width of the colored circle we get to see.
-	 * @param seed The seed that will generate the pattern.
+	 * <br> - sampleFreeSpace, if circles should only be tried where there is still some room, instead of anywhere in the square.
+	 * It wastes a lot less tries at the end, but gives a different image for the same seed.
+	 * @param context The seed and size that will generate the pattern.
 	 * @return The BufferedImage, that can then be displayed or saved. 
 	 */
 	@Override
-	public BufferedImage generate(long seed) {
-		System.out.println("Generating Lines...");
-		long a = System.currentTimeMillis();
-		int IMAGE_SIZE = Main.IMAGE_SIZE;
+	public BufferedImage generate(RenderContext context) {
+		long seed = context.seed;
+		int IMAGE_SIZE = context.size;
 		Random rand = new Random(seed);
 		BufferedImage image = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, BufferedImage.TYPE_INT_ARGB);
 		Graphics2D graphics = (Graphics2D) image.getGraphics();
@@ -38,8 +40,7 @@ public class FillCells implements Piece{
 		graphics.fillRect(0, 0, IMAGE_SIZE, IMAGE_SIZE);
 		graphics.setColor(Color.BLACK);
 		graphics.drawString(seed + "", 5, 10);
-		System.out.println(System.currentTimeMillis()-a + "ms to generate basic image");
-		a = System.currentTimeMillis();
+		Probe.phase("generate basic image");
 
 		int squareSize = (int) (IMAGE_SIZE/Math.sqrt(2)); // The square should have the same area as the white part
 		int squareStart = (IMAGE_SIZE-squareSize)/2;
@@ -50,69 +51,57 @@ public class FillCells implements Piece{
 		int width  = (int) (IMAGE_SIZE*0.5*0.008);
 		float hue = rand.nextFloat();
 		
-		ArrayList<Cell> cells = new ArrayList<>();
+		boolean sampleFreeSpace = false;
+		
+		CirclePacker cells = new CirclePacker(squareStart, squareStart, squareSize, squareSize, size);
+		if(sampleFreeSpace)
+			cells.enableFreeSpace(Math.max(1, minSize));
+		int[] position = new int[2];
 		int gen = 0;
 		while(size > minSize) {
 			int tries = 0;
-			int added = 0;
-			adding: while(tries < maxTries) {
+			while(tries < maxTries) {
+				int x, y;
+				if(sampleFreeSpace) {
+					if(!cells.sampleFree(rand, position))
+						break;
+					x = position[0];
+					y = position[1];
+				} else {
+					x = (int) (squareStart + rand.nextFloat() * squareSize);
+					y = (int) (squareStart + rand.nextFloat() * squareSize);
+				}
 				gen++;
-				Cell cell = new Cell(
-						(int) (squareStart + rand.nextFloat() * squareSize), 
-						(int) (squareStart + rand.nextFloat() * squareSize), 
-						size
-				);
-				for(Cell loop : cells) {
-					if(
-							cell.x - cell.size/2 < squareStart ||
-							cell.x + cell.size/2 > squareStart + squareSize ||
-							cell.y - cell.size/2 < squareStart ||
-							cell.y + cell.size/2 > squareStart + squareSize ||
-							loop.dist(cell) < (loop.size + cell.size)/2
-					) {
-						tries ++;
-						continue adding;
-					}
+				// the first circle never had to stay in the square, there was nothing to check it against
+				if(cells.size() == 0 || cells.fits(x, y, size)) {
+					cells.add(x, y, size);
+					tries = 0;
+				} else {
+					tries++;
 				}
-				cells.add(cell);
-				tries = 0;
-				added ++;
 			}
-			System.out.println("Added " + added + " cells, next generation");
+			Probe.count("generations", 1);
 			size -= size * 0.02;
 		}
-		System.out.println("Total " + cells.size() + " cells");
-		DecimalFormat df = new DecimalFormat("#,###.00");
-		double ratio = gen * 1.0 / cells.size();
-		System.out.println("Did " + df.format(gen) + " tries, for average " + df.format(ratio) + " tries per cell");
-		System.out.println(System.currentTimeMillis() - a + "ms to do math");
-		a = System.currentTimeMillis();
+		Probe.value("cells", cells.size());
+		Probe.value("tries", gen);
+		Probe.value("tries per cell", gen * 1.0 / cells.size());
+		Probe.value("fill ratio", cells.fillRatio());
+		Probe.phase("do math");
 		
-		for(Cell c : cells) {
-			graphics.setColor(Color.getHSBColor(hue + (rand.nextBoolean()?1:-1) * rand.nextFloat() * 0.15f, 1, 1));
-			graphics.fillOval(c.x-c.size/2, c.y-c.size/2, c.size, c.size);
-			if(!full && c.size > width) {
+		Palette.ColorCache colors = new Palette.ColorCache();
+		for(int i = 0; i < cells.size(); i++) {
+			int x = cells.x(i), y = cells.y(i), d = cells.diameter(i);
+			graphics.setColor(colors.get(Palette.hsb(hue + (rand.nextBoolean()?1:-1) * rand.nextFloat() * 0.15f, 1, 1)));
+			graphics.fillOval(x-d/2, y-d/2, d, d);
+			if(!full && d > width) {
 				graphics.setColor(Color.white);
-				graphics.fillOval(c.x-c.size/2+width/2, c.y-c.size/2+width/2, c.size-width, c.size-width);
+				graphics.fillOval(x-d/2+width/2, y-d/2+width/2, d-width, d-width);
 			}
 		}
-		System.out.println(System.currentTimeMillis()-a + "ms to draw lines");
+		Probe.phase("draw lines");
 		
-		System.out.println("Done.");
-		System.out.println();
 		
 		return image;
 	}
-	
-	static class Cell {
-		int x, y, size;
-		Cell(int x, int y, int size){
-			this.x = x;
-			this.y = y;
-			this.size = size;
-		}
-		double dist(Cell v) {
-			return Math.sqrt(Math.pow(v.x - x, 2) + Math.pow(v.y - y, 2));
-		}
-	}
 }
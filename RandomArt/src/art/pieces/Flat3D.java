@@ -9,14 +9,14 @@ import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
-import java.util.List;
 import java.util.Random;
 
-import art.Main;
 import art.Piece;
+import art.RenderContext;
 import art.util.OpenSimplexNoise;
-import art.util.PoissonDisk;
-import art.util.PoissonDisk.PVector;
+import art.util.PointSet;
+import art.util.PoissonCache;
+import art.util.Probe;
 
 public class Flat3D implements Piece{
 	
@@ -26,14 +26,13 @@ public class Flat3D implements Piece{
 	 * <br><br>
 	 * Some parts can be modified to obtain really nice graphics, exemples:
 	 * <br> - 
-	 * @param seed The seed that will generate the pattern.
+	 * @param context The seed and size that will generate the pattern.
 	 * @return The BufferedImage, that can then be displayed or saved. 
 	 */
 	@Override
-	public BufferedImage generate(long seed) {
-		System.out.println("Generating Lines...");
-		long a = System.currentTimeMillis();
-		int IMAGE_SIZE = Main.IMAGE_SIZE;
+	public BufferedImage generate(RenderContext context) {
+		long seed = context.seed;
+		int IMAGE_SIZE = context.size;
 		Random rand = new Random(seed);
 		BufferedImage image = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, BufferedImage.TYPE_INT_ARGB);
 		Graphics2D graphics = (Graphics2D) image.getGraphics();
@@ -42,18 +41,16 @@ public class Flat3D implements Piece{
 		graphics.setColor(Color.BLACK);
 		graphics.drawString(seed + "", 5, 10);
 		graphics.setStroke(new BasicStroke((float) (IMAGE_SIZE*0.5*0.003), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
-		System.out.println(System.currentTimeMillis()-a + "ms to generate basic image");
-		a = System.currentTimeMillis();
+		Probe.phase("generate basic image");
 
 		int squareSize = (int) (IMAGE_SIZE/Math.sqrt(2)); // The square should have the same area as the white part
 		OpenSimplexNoise noise = new OpenSimplexNoise(seed);
-		List<PVector> points = PoissonDisk.poissonDiskSampling(seed, squareSize/70, squareSize);
+		PointSet points = PoissonCache.shared().points(seed, squareSize/70, squareSize);
 		int segments = 180;
 		double TWO_PI = Math.PI*2;
 		float shapeSize = squareSize/2;
 		
-		System.out.println(System.currentTimeMillis()-a + "ms to generate points");
-		a = System.currentTimeMillis();
+		Probe.phase("generate points");
 		
 		graphics.setColor(Color.BLACK);
 		
@@ -75,26 +72,24 @@ public class Flat3D implements Piece{
 		}
 		
 		int offset = (int) ((IMAGE_SIZE)/2-shapeSize);
-		for(PVector p : points) {
-
-			p.x += offset;
-			p.y += offset;
+		points.translate(offset, offset);
+		for(int i = 0; i < points.size(); i++) {
+			int px = points.x(i), py = points.y(i);
 
 			boolean buggy = true;
 			double tan = buggy ? 
-					atan2(p.y-IMAGE_SIZE/2-squareSize*rand.nextFloat(), p.x-IMAGE_SIZE/2-squareSize*rand.nextFloat())*(rand.nextFloat()*0.5+0.5) :
-						atan2(p.y-IMAGE_SIZE/2, p.x-IMAGE_SIZE/2);
+					atan2(py-IMAGE_SIZE/2-squareSize*rand.nextFloat(), px-IMAGE_SIZE/2-squareSize*rand.nextFloat())*(rand.nextFloat()*0.5+0.5) :
+						atan2(py-IMAGE_SIZE/2, px-IMAGE_SIZE/2);
 
 			float irr = irr(tan, 0, noise);
-			double dist = dist(IMAGE_SIZE/2, IMAGE_SIZE/2, p.x, p.y);
+			double dist = dist(IMAGE_SIZE/2, IMAGE_SIZE/2, px, py);
 			dist = Math.sqrt(dist);
 			
 			if(dist < shapeSize*irr)
-				graphics.fillOval(p.x-squareSize/400, p.y-squareSize/400, squareSize/200, squareSize/200);
+				graphics.fillOval(px-squareSize/400, py-squareSize/400, squareSize/200, squareSize/200);
 		}
 		
-		System.out.println(System.currentTimeMillis()-a + "ms to finish");
-		a = System.currentTimeMillis();
+		Probe.phase("finish");
 		
 		
 		return image;
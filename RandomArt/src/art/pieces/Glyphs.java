@@ -3,37 +3,40 @@ package art.pieces;
 import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Graphics2D;
-import java.awt.geom.CubicCurve2D;
 import java.awt.image.BufferedImage;
 import java.util.Random;
 
-import art.Main;
 import art.Piece;
+import art.RenderContext;
+import art.util.Probe;
+import art.util.StampCache;
 
 public class Glyphs implements Piece {
+
+	private static final int COLOR = 0xFFD0D0D0;
+
 	/**
 	 * Will return an image with tons of small glyphs.
 	 * <br> Using this method will also output the time it takes to create each step of the image.
 	 * <br> <br>
 	 * Some parts can be modified to obtain really nice graphics, exemples:
 	 * <br> - amountSquares, the amount of squares on the width (iirc).
-	 * @param seed The seed that will generate the pattern.
+	 * <br> Glyphs are made of the same few dots, lines and curves, which are drawn from a {@link StampCache}.
+	 * @param context The seed and size that will generate the pattern.
 	 * @return The BufferedImage, that can then be displayed or saved. 
 	 */
 	@Override
-	public BufferedImage generate(long seed) {
-		System.out.println("Generating Connect...");
-		long a = System.currentTimeMillis();
-		int IMAGE_SIZE = Main.IMAGE_SIZE;
+	public BufferedImage generate(RenderContext context) {
+		long seed = context.seed;
+		int IMAGE_SIZE = context.size;
 		Random rand = new Random(seed);
 		BufferedImage image = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, BufferedImage.TYPE_INT_ARGB);
 		Graphics2D graphics = (Graphics2D) image.getGraphics();
 		graphics.setColor(new Color(0x404040));
 		graphics.fillRect(0, 0, IMAGE_SIZE, IMAGE_SIZE);
-		graphics.setColor(new Color(0xD0D0D0));
+		graphics.setColor(new Color(COLOR));
 		graphics.drawString(seed + "", 5, 10);
-		System.out.println(System.currentTimeMillis()-a + "ms to generate basic image");
-		a = System.currentTimeMillis();
+		Probe.phase("generate basic image");
 
 		int amountSquares = 20;
 		int squareSize = (int) (IMAGE_SIZE/Math.sqrt(2)); // The square should have the same area as the white part
@@ -42,27 +45,26 @@ public class Glyphs implements Piece {
 		int glyphSize = (int) (squareSize/(amountSquares*1.5));
 		int glyphDist = glyphSize + (squareSize - amountSquares * glyphSize)/(amountSquares-1);
 		graphics.setStroke(new BasicStroke(lineWidth/2f));
-		System.out.println("The line width is " + lineWidth);
-		System.out.println(System.currentTimeMillis() - a + "ms to do math");
-		a = System.currentTimeMillis();
+		Probe.value("line width", lineWidth);
+		Probe.phase("do math");
 		
+		StampCache stamps = new StampCache(image, graphics);
 		for(int i = 0; i < amountSquares*amountSquares; i++) {
 			glyph(
-					graphics, rand, 
+					graphics, stamps, rand, 
 					squareStart + (i%amountSquares) * glyphDist,
 					squareStart + (i/amountSquares) * glyphDist,
 					glyphSize
 			);
 		}
-		System.out.println(System.currentTimeMillis()-a + "ms to draw lines");
+		Probe.value("stamp hits", stamps.hits());
+		Probe.phase("draw lines");
 		
-		System.out.println("Done.");
-		System.out.println();
 		
 		return image;
 	}
 	
-	private static void glyph(Graphics2D graphics, Random rand, int x, int y, int glyphSize) {
+	private static void glyph(Graphics2D graphics, StampCache stamps, Random rand, int x, int y, int glyphSize) {
 		int distDots = glyphSize/2;
 		int lineWidth = distDots/10; // The width of the line
 		int[] connected = new int[rand.nextInt(3)+4];
@@ -76,13 +78,12 @@ public class Glyphs implements Piece {
 			connected[i] = num;
 		}
 		graphics.setStroke(new BasicStroke(lineWidth/2f));
-		long a = System.currentTimeMillis();
 
 		for(int i = 0; i < 9; i++) {
-			graphics.fillOval(
+			stamps.fillOval(
 					x + distDots * (i%3) - lineWidth/2, 
 					y + distDots * (i/3) - lineWidth/2, 
-					lineWidth, lineWidth);
+					lineWidth, lineWidth, COLOR);
 		}
 		int last = connected[0];
 		for(int i = 1; i < connected.length; i++) {
@@ -91,7 +92,7 @@ public class Glyphs implements Piece {
 			int nx = x + distDots * (connected[i]%3);
 			int ny = y + distDots * (connected[i]/3);
 			if(rand.nextInt(3) != 0) {
-				graphics.drawLine(lx, ly, nx, ny);
+				stamps.drawLine(lx, ly, nx, ny, COLOR);
 			} else {
 				int p1, p2;
 				do {
@@ -100,20 +101,17 @@ public class Glyphs implements Piece {
 				do {
 					p2 = rand.nextInt(9);
 				} while (p2 == last || p2 == connected[i] || p2 == p1);
-				System.out.println("Curve: " + last + "->" + connected[i] + " (" + p1 + "/" + p2 + ")");
+				Probe.count("curves", 1);
 				int p1x = x + distDots * (p1%3);
 				int p1y = y + distDots * (p1/3);
 				int p2x = x + distDots * (p2%3);
 				int p2y = y + distDots * (p2/3);
-				CubicCurve2D curve = new CubicCurve2D.Double();
-				curve.setCurve(lx, ly, p1x, p1y, p1x, p1y, nx, ny);
-				graphics.draw(curve);
+				stamps.drawCurve(lx, ly, p1x, p1y, p1x, p1y, nx, ny, COLOR);
 			}
 			
 			last = connected[i];
 		}
-		
-		System.out.println("Drew glyph in " + (System.currentTimeMillis()-a) + "ms");
+		Probe.count("glyphs", 1);
 	}
 	
 	private static boolean contains(int searched, int[] values) {
@@ -5,8 +5,12 @@ import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.util.Random;
 
-import art.Main;
 import art.Piece;
+import art.RenderContext;
+import art.util.CapsuleRasterizer;
+import art.util.IntRaster;
+import art.util.Palette;
+import art.util.Probe;
 
 public class Gradient implements Piece{
 
@@ -21,14 +25,16 @@ public class Gradient implements Piece{
 	 * <br> - lineWidth, will increase the time needed to generate the image, but can be used to create pretty stuff.
 	 * <br> - lineSize, the max size of a line, which is reached rarely.
 	 * <br> - hueChange, wether each comet has a random color, or if all of them have the same one.
-	 * @param seed The seed that will generate the pattern.
+	 * <br> - hueSteps, if above 0, the colors are looked up in a {@link Palette.HueTable} of that many steps instead
+	 * of being computed for each circle. The image changes slightly, as each hue is rounded to the closest step.
+	 * <br> Each comet is painted at once by a {@link CapsuleRasterizer}, which looks the same as a circle per step.
+	 * @param context The seed and size that will generate the pattern.
 	 * @return The BufferedImage, that can then be displayed or saved. 
 	 */
 	@Override
-	public BufferedImage generate(long seed) {
-		System.out.println("Generating Gradient...");
-		long a = System.currentTimeMillis();
-		int IMAGE_SIZE = Main.IMAGE_SIZE;
+	public BufferedImage generate(RenderContext context) {
+		long seed = context.seed;
+		int IMAGE_SIZE = context.size;
 		Random rand = new Random(seed);
 		BufferedImage image = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, BufferedImage.TYPE_INT_ARGB);
 		Graphics2D graphics = (Graphics2D) image.getGraphics();
@@ -36,8 +42,7 @@ public class Gradient implements Piece{
 		graphics.fillRect(0, 0, IMAGE_SIZE, IMAGE_SIZE);
 		graphics.setColor(Color.BLACK);
 		graphics.drawString(seed + "", 5, 10);
-		System.out.println(System.currentTimeMillis()-a + "ms to generate basic image");
-		a = System.currentTimeMillis();
+		Probe.phase("generate basic image");
 
 		int squareSize = (int) (IMAGE_SIZE/Math.sqrt(2)); // The square should have the same area as the white part
 		int squareStart = (IMAGE_SIZE-squareSize)/2;
@@ -48,44 +53,58 @@ public class Gradient implements Piece{
 		int dir = (rand.nextBoolean() ? 1 : -1);
 		float hue = rand.nextFloat(); // The beginning hue
 		boolean hueChange = false;
+		int hueSteps = 0;
 		float incHue = (rand.nextBoolean() ? 1 : -1) * (0.15f + rand.nextFloat()*0.15f); // The value by which the hue will increase
-		System.out.println("Width is " + lineWidth);
-		System.out.println(System.currentTimeMillis() - a + "ms to do math");
-		a = System.currentTimeMillis();
+		Probe.value("line width", lineWidth);
+		Probe.phase("do math");
 
+		Palette.HueTable hues = null;
+		if(hueSteps > 0) {
+			// a random hue plus the increase stays between -0.3 and 1.3
+			hues = hueChange ? new Palette.HueTable(-0.3f, 1.3f, hueSteps, 1, 1) : new Palette.HueTable(hue, hue + incHue, hueSteps, 1, 1);
+		}
+		int[] lineColors = new int[lineSize];
+		lineColors(lineColors, hues, hue, incHue, lineWidth);
+		CapsuleRasterizer capsules = new CapsuleRasterizer(new IntRaster(image));
 		for(int i = 0; i < amountLines; i++) {
-			if(hueChange)
+			if(hueChange) {
 				hue = rand.nextFloat();
+				lineColors(lineColors, hues, hue, incHue, lineWidth);
+			}
 			dir = (rand.nextBoolean() ? 1 : -1);
 			int x = (int) (squareStart + rand.nextFloat() * squareSize);
 			int y = (int) (squareStart + rand.nextFloat() * squareSize);
 			double mult = (0.8 + 0.2 *  (amountLines-i) / amountLines);
-			System.out.println("Mult is " + mult);
 			int width = (int) (lineWidth * mult);
-			System.out.println("Size: " + lineSize + " Width: " + width + " Starting at " + x + "/" + y);
 			
-			graphics.setColor(Color.getHSBColor(hue, 1, 1));
+			int dx = dir, dy = sameDir? -dir : dir;
 			int j;
 			for(j = 0; j < lineSize; j++) {
-				
-				if(j > lineWidth/2)
-					graphics.setColor(Color.getHSBColor(hue + incHue * ((j-lineWidth/2f)/lineSize), 1, 1));
-				
-				int px = x + j * dir;
-				int py = y + j * (sameDir? -dir : dir);
-				
+				int px = x + j * dx;
+				int py = y + j * dy;
 				if(squareStart+squareSize < px || px < squareStart || squareStart+squareSize < py || py < squareStart)
 					break;
-				
-				graphics.fillOval(px - width/2 , py - width/2 , width, width);
 			}
-			System.out.println("Did oval " + i + " with " + j + " circles");
+			capsules.sweep(x, y, dx, dy, j, width, lineColors);
+			Probe.count("circles", j);
 		}
-		System.out.println(System.currentTimeMillis()-a + "ms to draw lines");
+		Probe.phase("draw lines");
 		
-		System.out.println("Done.");
-		System.out.println();
 		
 		return image;
 	}
+	
+	/**
+	 * Writes the color of each circle along a line, the first half width keeping the beginning hue.
+	 * <br> The same array is filled again for each comet when the hue changes, so nothing is allocated per comet.
+	 * @param colors One color per circle, its length being the size of a line.
+	 * @param hues The table to take the colors from, or null to compute each of them.
+	 */
+	private static void lineColors(int[] colors, Palette.HueTable hues, float hue, float incHue, int lineWidth) {
+		int lineSize = colors.length;
+		for(int j = 0; j < lineSize; j++) {
+			float h = j > lineWidth/2 ? hue + incHue * ((j-lineWidth/2f)/lineSize) : hue;
+			colors[j] = hues == null ? Palette.hsb(h, 1, 1) : hues.get(h);
+		}
+	}
 }
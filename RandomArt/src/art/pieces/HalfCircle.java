@@ -1,6 +1,5 @@
 package art.pieces;
 
-import static art.Main.IMAGE_SIZE;
 import static java.lang.Math.round;
 
 import java.awt.BasicStroke;
@@ -11,9 +10,11 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 
-import art.Main;
 import art.Piece;
+import art.RenderContext;
 import art.util.OpenSimplexNoise;
+import art.util.Probe;
+import art.util.SegmentHash;
 
 public class HalfCircle implements Piece{
 	/**
@@ -27,14 +28,13 @@ public class HalfCircle implements Piece{
 	 * <br> - If done carefully, the generator behind stretchX and stretchY can be changed, to change the final offset of the rectangle.
 	 * This should be done carefully, because the current settings are, in my opinion, really nice and changing them can make
 	 * everything ugly if not perfect.
-	 * @param seed The seed that will generate the pattern.
+	 * @param context The seed and size that will generate the pattern.
 	 * @return The BufferedImage, that can then be displayed or saved. 
 	 */
 	@Override
-	public BufferedImage generate(long seed) {
-		System.out.println("Generating Lines...");
-		long chr = System.currentTimeMillis();
-		int IMAGE_SIZE = Main.IMAGE_SIZE;
+	public BufferedImage generate(RenderContext context) {
+		long seed = context.seed;
+		int IMAGE_SIZE = context.size;
 		Random rand = new Random(seed);
 		BufferedImage image = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, BufferedImage.TYPE_INT_ARGB);
 		Graphics2D graphics = (Graphics2D) image.getGraphics();
@@ -42,17 +42,18 @@ public class HalfCircle implements Piece{
 		graphics.fillRect(0, 0, IMAGE_SIZE, IMAGE_SIZE);
 		graphics.setColor(Color.WHITE);
 		graphics.drawString(seed + "", 5, 10);
-		System.out.println(System.currentTimeMillis()-chr + "ms to generate basic image");
-		chr = System.currentTimeMillis();
+		Probe.phase("generate basic image");
 
 		int circleRadius = (int) (IMAGE_SIZE/Math.sqrt(2))/2; // The square should have the same area as the white part
 		int squareCenter = (IMAGE_SIZE )/2;
 		int amountLines = 200; // The amount of lines on the piece
 		float hue = rand.nextFloat(); // The beginning hue
 		OpenSimplexNoise noise = new OpenSimplexNoise(seed);
-		double segSize = circleRadius/1000;
+		double segSize = Math.max(1, circleRadius/1000);
 		double startAngle = rand.nextFloat()*Math.PI*2;
 		List<Segment> segments = new ArrayList<>();
+		// only used to find the closest segment to each ray, so its cells are large compared to a segment
+		SegmentHash starts = new SegmentHash(Math.max(segSize, circleRadius/32.0));
 		segments.add(new Segment(
 				Math.cos(startAngle)*circleRadius, 
 				Math.sin(startAngle)*circleRadius, 
@@ -68,6 +69,8 @@ public class HalfCircle implements Piece{
 			angle += var;
 			segments.add(new Segment(last.x2, last.y2, last.x2+Math.cos(angle)*segSize, last.y2+Math.sin(angle)*segSize));
 		}
+		for(Segment seg : segments)
+			starts.add(seg.x1, seg.y1, seg.x2, seg.y2);
 		
 		
 		graphics.setColor(Color.WHITE);
@@ -79,15 +82,7 @@ public class HalfCircle implements Piece{
 			double startX = Math.cos(angle)*circleRadius;
 			double startY = Math.sin(angle)*circleRadius;
 			
-			Segment best = null;
-			double distBest = Double.MAX_VALUE;
-			for(Segment s : segments) {
-				double dist = dist(startX, startY, s.x1, s.y1);
-				if(dist < distBest) {
-					distBest = dist;
-					best = s;
-				}
-			}
+			Segment best = segments.get(starts.nearestStart(startX, startY));
 			
 			graphics.drawLine((int) startX+squareCenter, (int) round(startY)+squareCenter, (int) round(best.x1)+squareCenter, (int) round(best.y1)+squareCenter);
 		}
@@ -97,8 +92,7 @@ public class HalfCircle implements Piece{
 			Segment seg = segments.get(i);
 			draw(graphics, seg, squareCenter);
 		}
-		
-		
+		Probe.phase("grow and draw lines");
 		
 		return image;
 	}
@@ -111,37 +105,6 @@ public class HalfCircle implements Piece{
 		return (x-x2)*(x-x2) + (y-y2)*(y-y2);
 	}
 	
-	static boolean canPlace(Segment s, List<Segment> segments, double limit) {
-		if(s.x2 < -IMAGE_SIZE || s.y2 < -IMAGE_SIZE || s.x1 > IMAGE_SIZE || s.y1 > IMAGE_SIZE)
-			return false;
-		if(dist(0,0,s.x2,s.y2) < limit*4 || dist(0,0,s.x1,s.y1) < dist(0,0,s.x2,s.y2))
-			return false;
-		for(Segment seg : segments)
-			if(
-					s.x1 != seg.x2 && 
-					s.y1 != seg.y2 && 
-					dist(s.x2, s.y2, seg.x2, seg.y2) < limit
-			) 
-				return false;
-		return true;
-	}
-	
-	static boolean intersects(Segment s, int x1, int y1, int x2, int y2) {
-		double s1_x, s1_y, s2_x, s2_y;
-	    s1_x = s.x2 - s.x1;     s1_y = s.y2 - s.y1;
-	    s2_x = x2 - x1;     	s2_y = y2 - y1;
-
-	    double s_, t;
-	    s_ = (-s1_y * (s.x1 - x1) + s1_x * (s.y1 - y1)) / (-s2_x * s1_y + s1_x * s2_y);
-	    t  = ( s2_x * (s.y1 - y1) - s2_y * (s.x1 - x1)) / (-s2_x * s1_y + s1_x * s2_y);
-
-	    if (s_ >= 0 && s_ <= 1 && t >= 0 && t <= 1)
-	        // Collision detected
-	        return true;
-
-	    return false; // No collision
-	}
-	
 	static class Segment {
 		private double x1, y1, x2, y2;
 		
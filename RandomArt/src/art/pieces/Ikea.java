@@ -5,13 +5,15 @@ import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.util.Random;
 
-import art.Main;
 import art.Piece;
+import art.RenderContext;
+import art.util.Probe;
 
 public class Ikea implements Piece {
 
 	@Override
-	public BufferedImage generate(long seed) {
+	public BufferedImage generate(RenderContext context) {
+		long seed = context.seed;
 		Color[] swedishColors = new Color[] {
 				new Color(0x5140b9),
 				new Color(0x1a6b93),
@@ -42,16 +44,13 @@ public class Ikea implements Piece {
 		Color[] colors = partyColorsWRed;
 		
 		
-		System.out.println("Generating Ikea...");
-		long a = System.currentTimeMillis();
-		int IMAGE_SIZE = Main.IMAGE_SIZE;
+		int IMAGE_SIZE = context.size;
 		Random rand = new Random(seed);
 		BufferedImage image = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, BufferedImage.TYPE_INT_ARGB);
 		Graphics2D graphics = (Graphics2D) image.getGraphics();
 		graphics.setColor(Color.WHITE);
 		graphics.fillRect(0, 0, IMAGE_SIZE, IMAGE_SIZE);
-		System.out.println(System.currentTimeMillis()-a + "ms to generate basic image");
-		a = System.currentTimeMillis();
+		Probe.phase("generate basic image");
 
 		int amountTriangles = 1000; // The amount of triangles on the piece
 		int averageSize = 800; // The average distance between points of the triangle
@@ -79,11 +78,9 @@ public class Ikea implements Piece {
 		}
 		
 		
-		System.out.println(System.currentTimeMillis()-a + "ms to draw triangles");
+		Probe.phase("draw triangles");
 		graphics.setColor(Color.BLACK);
 		graphics.drawString(seed + "", 5, 10);
-		System.out.println("Done.");
-		System.out.println();
 		
 		return image;
 	}
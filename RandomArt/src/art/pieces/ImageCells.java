@@ -5,15 +5,17 @@ import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
-import java.text.DecimalFormat;
-import java.util.ArrayList;
 import java.util.Random;
 
 import javax.imageio.ImageIO;
-import javax.swing.JPanel;
 
 import art.Main;
 import art.Piece;
+import art.RenderContext;
+import art.util.CirclePacker;
+import art.util.MaskBitmap;
+import art.util.Palette;
+import art.util.Probe;
 
 public class ImageCells implements Piece {
 	/**
@@ -26,28 +28,25 @@ public class ImageCells implements Piece {
 	 * <br> - distMult impacts the gradient, so the lower the value, the less the color changes, while a high value will make a rainbow
 	 * effet.
 	 * <br> - black, if set to true some black dots with a gradual offset will appear, in a similar fasion to Lines.
-	 * @param seed The seed that will generate the pattern.
+	 * <br> - sampleMask, if circles should only be tried on the pixels of the mask that aren't white. With big or mostly white
+	 * masks almost no try is wasted, while trying anywhere in the square gives the images of older versions.
+	 * @param context The seed and size that will generate the pattern.
 	 * @return The BufferedImage, that can then be displayed or saved. 
 	 * @throws IOException if the mask file isn't found.
 	 */
 	@Override
-	public BufferedImage generate(long seed) {
-		System.out.println("Generating Cells...");
-		long a = System.currentTimeMillis();
-		int IMAGE_SIZE = Main.IMAGE_SIZE;
+	public BufferedImage generate(RenderContext context) {
+		long seed = context.seed;
+		int IMAGE_SIZE = context.size;
 		Random rand = new Random(seed);
 		BufferedImage image = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, BufferedImage.TYPE_INT_ARGB);
-		BufferedImage mask = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, BufferedImage.TYPE_INT_ARGB);
 		Graphics2D graphics = (Graphics2D) image.getGraphics();
 		graphics.setColor(Color.WHITE);
 		graphics.fillRect(0, 0, IMAGE_SIZE, IMAGE_SIZE);
-		mask.getGraphics().setColor(Color.WHITE);
-		mask.getGraphics().fillRect(0, 0, IMAGE_SIZE, IMAGE_SIZE);
 		graphics.setColor(Color.BLACK);
 		graphics.setStroke(new BasicStroke((float) (IMAGE_SIZE*0.5*0.003), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
 		graphics.drawString(seed + "", 5, 10);
-		System.out.println(System.currentTimeMillis()-a + "ms to generate basic image");
-		a = System.currentTimeMillis();
+		Probe.phase("generate basic image");
 		
 		int squareSize = (int) (IMAGE_SIZE/Math.sqrt(2)); // The square should have the same area as the white part
 		int squareStart = (IMAGE_SIZE-squareSize)/2;
@@ -56,94 +55,60 @@ public class ImageCells implements Piece {
 		boolean full = false;
 		int width  = (int) (IMAGE_SIZE*0.5*0.003);
 		float hue = rand.nextFloat();
+		boolean sampleMask = true;
+		MaskBitmap mask;
 		try {
-			System.out.println(Main.class.getClassLoader().getResourceAsStream("data/mask.png") == null);
-			mask.getGraphics().drawImage(
+			mask = MaskBitmap.fromImage(
 					ImageIO.read(Main.class.getClassLoader().getResourceAsStream("data/mask.png")), 
-					squareStart, squareStart, squareSize, squareSize, new JPanel());
+					squareSize, squareSize, MaskBitmap::notWhite);
 		} catch (IOException e) {
 			e.printStackTrace();
 			return image;
 		}
+		Probe.value("mask pixels", mask.count());
+		Probe.phase("read mask");
 		
-		ArrayList<Cell> cells = new ArrayList<>();
+		CirclePacker cells = new CirclePacker(squareStart, squareStart, squareSize, squareSize, size);
+		int[] position = new int[2];
 		int gen = 0;
 		int tries = 0;
-		adding: while(tries < maxTries) {
-			gen++;
-			Cell cell = new Cell(
-					(int) (squareStart + rand.nextFloat() * squareSize), 
-					(int) (squareStart + rand.nextFloat() * squareSize), 
-					size
-					);
-			int[] rgb = getARGB(mask, cell.x, cell.y);
-			if(
-					cell.x - cell.size/2 < squareStart ||
-					cell.x + cell.size/2 > squareStart + squareSize ||
-					cell.y - cell.size/2 < squareStart ||
-					cell.y + cell.size/2 > squareStart + squareSize ||
-					( // Is White-ish
-						rgb[1] > 240 &&
-						rgb[2] > 240 &&
-						rgb[3] > 240
-					)
-			) {
-				tries ++;
-				continue adding;
+		while(tries < maxTries) {
+			int x, y;
+			if(sampleMask) {
+				if(!mask.sample(rand, position))
+					break;
+				x = squareStart + position[0];
+				y = squareStart + position[1];
+			} else {
+				x = (int) (squareStart + rand.nextFloat() * squareSize);
+				y = (int) (squareStart + rand.nextFloat() * squareSize);
 			}
-			for(Cell loop : cells) {
-				if(
-						
-						loop.dist(cell) < (loop.size + cell.size)/2
-						) {
-					tries ++;
-					continue adding;
-				}
+			gen++;
+			if(mask.get(x - squareStart, y - squareStart) && cells.fits(x, y, size)) {
+				cells.add(x, y, size);
+				tries = 0;
+			} else {
+				tries++;
 			}
-			cells.add(cell);
-			tries = 0;
 		}
-		System.out.println("Total " + cells.size() + " cells");
-		DecimalFormat df = new DecimalFormat("#,###.00");
-		double ratio = gen * 1.0 / cells.size();
-		System.out.println("Did " + df.format(gen) + " tries, for average " + df.format(ratio) + " tries per cell");
-		System.out.println(System.currentTimeMillis() - a + "ms to do math");
-		a = System.currentTimeMillis();
+		Probe.value("cells", cells.size());
+		Probe.value("tries", gen);
+		Probe.value("tries per cell", gen * 1.0 / cells.size());
+		Probe.phase("do math");
 		
-		for(Cell c : cells) {
-			graphics.setColor(Color.getHSBColor(hue + (rand.nextBoolean()?1:-1) * rand.nextFloat() * 0.15f, 1, 1));
-			graphics.fillOval(c.x-c.size/2, c.y-c.size/2, c.size, c.size);
-			if(!full && c.size > width) {
+		Palette.ColorCache colors = new Palette.ColorCache();
+		for(int i = 0; i < cells.size(); i++) {
+			int x = cells.x(i), y = cells.y(i), d = cells.diameter(i);
+			graphics.setColor(colors.get(Palette.hsb(hue + (rand.nextBoolean()?1:-1) * rand.nextFloat() * 0.15f, 1, 1)));
+			graphics.fillOval(x-d/2, y-d/2, d, d);
+			if(!full && d > width) {
 				graphics.setColor(Color.white);
-				graphics.fillOval(c.x-c.size/2+width/2, c.y-c.size/2+width/2, c.size-width, c.size-width);
+				graphics.fillOval(x-d/2+width/2, y-d/2+width/2, d-width, d-width);
 			}
 		}
-		System.out.println(System.currentTimeMillis()-a + "ms to draw lines");
+		Probe.phase("draw lines");
 		
-		System.out.println("Done.");
-		System.out.println();
 		
 		return image;
 	}
-	
-	static class Cell {
-		int x, y, size;
-		Cell(int x, int y, int size){
-			this.x = x;
-			this.y = y;
-			this.size = size;
-		}
-		double dist(Cell v) {
-			return Math.sqrt(Math.pow(v.x - x, 2) + Math.pow(v.y - y, 2));
-		}
-	}
-	
-	static int[] getARGB(BufferedImage i, int x, int y) {
-		int d = i.getRGB(x, y);
-		int a = (d & 0xff000000) >> 24;
-		int r = (d & 0x00ff0000) >> 16;
-		int g = (d & 0x0000ff00) >> 8;
-		int b =  d & 0x000000ff;
-		return new int[] {a, r, g, b};
-	}
 }
@@ -5,8 +5,9 @@ import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.util.Random;
 
-import art.Main;
 import art.Piece;
+import art.RenderContext;
+import art.util.Probe;
 
 public class Lines implements Piece{
 	/**
@@ -20,14 +21,13 @@ public class Lines implements Piece{
 	 * <br> - If done carefully, the generator behind stretchX and stretchY can be changed, to change the final offset of the rectangle.
 	 * This should be done carefully, because the current settings are, in my opinion, really nice and changing them can make
 	 * everything ugly if not perfect.
-	 * @param seed The seed that will generate the pattern.
+	 * @param context The seed and size that will generate the pattern.
 	 * @return The BufferedImage, that can then be displayed or saved. 
 	 */
 	@Override
-	public BufferedImage generate(long seed) {
-		System.out.println("Generating Lines...");
-		long a = System.currentTimeMillis();
-		int IMAGE_SIZE = Main.IMAGE_SIZE;
+	public BufferedImage generate(RenderContext context) {
+		long seed = context.seed;
+		int IMAGE_SIZE = context.size;
 		Random rand = new Random(seed);
 		BufferedImage image = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, BufferedImage.TYPE_INT_ARGB);
 		Graphics2D graphics = (Graphics2D) image.getGraphics();
@@ -35,8 +35,7 @@ public class Lines implements Piece{
 		graphics.fillRect(0, 0, IMAGE_SIZE, IMAGE_SIZE);
 		graphics.setColor(Color.BLACK);
 		graphics.drawString(seed + "", 5, 10);
-		System.out.println(System.currentTimeMillis()-a + "ms to generate basic image");
-		a = System.currentTimeMillis();
+		Probe.phase("generate basic image");
 
 		int squareSize = (int) (IMAGE_SIZE/Math.sqrt(2)); // The square should have the same area as the white part
 		int squareStart = (IMAGE_SIZE-squareSize)/2;
@@ -46,10 +45,8 @@ public class Lines implements Piece{
 		int stretchY = (rand.nextBoolean() ? 1 : -1) * ((lineWidth / 2) + rand.nextInt(lineWidth/2)); // L'ecart final en y
 		float hue = rand.nextFloat(); // The beginning hue
 		float incHue = rand.nextFloat() * 0.3f; // The value by which the hue will increase
-		System.out.println("The stretch is " + stretchX + "/" + stretchY);
-		System.out.println("The line width is " + lineWidth);
-		System.out.println(System.currentTimeMillis() - a + "ms to do math");
-		a = System.currentTimeMillis();
+		Probe.value("line width", lineWidth);
+		Probe.phase("do math");
 
 		for(int i = 0; i < amountLines; i++) {
 			graphics.setColor(Color.getHSBColor(hue += incHue / amountLines, 1, 1));
@@ -62,10 +59,8 @@ public class Lines implements Piece{
 					lineWidth
 			);
 		}
-		System.out.println(System.currentTimeMillis()-a + "ms to draw lines");
+		Probe.phase("draw lines");
 		
-		System.out.println("Done.");
-		System.out.println();
 		
 		return image;
 	}
@@ -7,9 +7,11 @@ import java.awt.image.BufferedImage;
 import java.util.Arrays;
 import java.util.Random;
 
-import art.Main;
 import art.Piece;
+import art.RenderContext;
+import art.util.IntRaster;
 import art.util.OpenSimplexNoise;
+import art.util.Probe;
 
 public class MultLines implements Piece{
 
@@ -19,14 +21,13 @@ public class MultLines implements Piece{
 	 * <br><br>
 	 * Some parts can be modified to obtain really nice graphics, exemples:
 	 * <br> - 
-	 * @param seed The seed that will generate the pattern.
+	 * @param context The seed and size that will generate the pattern.
 	 * @return The BufferedImage, that can then be displayed or saved. 
 	 */
 	@Override
-	public BufferedImage generate(long seed) {
-		System.out.println("Generating Lines...");
-		long a = System.currentTimeMillis();
-		int IMAGE_SIZE = Main.IMAGE_SIZE;
+	public BufferedImage generate(RenderContext context) {
+		long seed = context.seed;
+		int IMAGE_SIZE = context.size;
 		Random rand = new Random(seed);
 		BufferedImage image = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, BufferedImage.TYPE_INT_RGB);
 		Graphics2D graphics = (Graphics2D) image.getGraphics();
@@ -35,8 +36,7 @@ public class MultLines implements Piece{
 		graphics.setColor(Color.BLACK);
 		graphics.drawString(seed + "", 5, 10);
 		graphics.setStroke(new BasicStroke((float) (IMAGE_SIZE*0.01), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
-		System.out.println(System.currentTimeMillis()-a + "ms to generate basic image");
-		a = System.currentTimeMillis();
+		Probe.phase("generate basic image");
 
 		int squareSize = (int) (IMAGE_SIZE/Math.sqrt(2)); // The square should have the same area as the white part
 		OpenSimplexNoise noise = new OpenSimplexNoise(seed);
@@ -58,41 +58,17 @@ public class MultLines implements Piece{
 				new Color(0xe3d6aa)
 		};
 		
+		IntRaster raster = new IntRaster(image);
 		for(int i = 0; i < lineAmount; i++) {
 			int width = (int) (lineSize * (rand.nextFloat()*0.1f+0.9f));
 			int x = (int) ((squareSize-width)*rand.nextFloat());
 			int y = (int) ((squareSize-lineWidth)*rand.nextFloat());
 			
-			fillRect(image, colors[(y*colors.length)/(squareSize-lineWidth)], startX+x, startX+y, width, lineWidth);
+			raster.multiplyRect(startX+x, startX+y, width, lineWidth, colors[(y*colors.length)/(squareSize-lineWidth)].getRGB());
 		}
-		
+		Probe.phase("draw lines");
 		
 		return image;
 	}
 	
-	private static void fillRect(BufferedImage img, Color c, int x, int y, int width, int height) {
-		for(int xp = x; xp < x+width; xp++) {
-			for(int yp = y; yp < y+height; yp++) {
-				img.setRGB(xp, yp, multColors(img.getRGB(xp, yp), c));
-			}
-		}
-	}
-	
-	private static int multColors(int c1, Color c2) {
-		float[] rgb1 = {
-				((c1 & 0xFF0000) >> 16)/255f,
-				((c1 & 0x00FF00) >>  8)/255f,
-				((c1 & 0x0000FF) >>  0)/255f
-		};
-		float[] rgb2 = c2.getRGBColorComponents(null);
-				
-		int c = 0;
-		for(int i = 0; i < 3; i++) {
-			c <<= 8;
-			c += (rgb1[i] * rgb2[i]) * 256;
-		}
-		
-		return c;
-	}
-	
 }
@@ -9,8 +9,10 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.Random;
 
-import art.Main;
 import art.Piece;
+import art.RenderContext;
+import art.util.Palette;
+import art.util.Probe;
 
 public class Orbit implements Piece{
 	/**
@@ -28,14 +30,13 @@ public class Orbit implements Piece{
 	 * <br> - You can also change the sorting algorithm, to either display the planets from larger to smaller, or the opposite.
 	 * <br> - Setting all the orbits to start from the same angle by setting dist to 0 and then increasing them by minSplit without
 	 * any randomness will output a nice trianle of planets.
-	 * @param seed The seed that will generate the pattern.
+	 * @param context The seed and size that will generate the pattern.
 	 * @return The BufferedImage, that can then be displayed or saved. 
 	 */
 	@Override
-	public BufferedImage generate(long seed) {
-		System.out.println("Generating Orbit...");
-		long a = System.currentTimeMillis();
-		int IMAGE_SIZE = Main.IMAGE_SIZE;
+	public BufferedImage generate(RenderContext context) {
+		long seed = context.seed;
+		int IMAGE_SIZE = context.size;
 		Random rand = new Random(seed);
 		BufferedImage image = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, BufferedImage.TYPE_INT_ARGB);
 		Graphics2D graphics = (Graphics2D) image.getGraphics();
@@ -44,8 +45,7 @@ public class Orbit implements Piece{
 		graphics.setColor(Color.BLACK);
 		graphics.setStroke(new BasicStroke((float) (IMAGE_SIZE*0.5*0.003), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
 		graphics.drawString(seed + "", 5, 10);
-		System.out.println(System.currentTimeMillis()-a + "ms to generate basic image");
-		a = System.currentTimeMillis();
+		Probe.phase("generate basic image");
 		
 		
 		float hue = rand.nextFloat();
@@ -57,8 +57,7 @@ public class Orbit implements Piece{
 		double decSize = 0.7;
 		double minSplit = 2*Math.PI/planets; // = (Math.PI*2)/(planets*2) Faudrait faire ca, on simplifie
 		int middle = IMAGE_SIZE/2;
-		System.out.println(System.currentTimeMillis()-a + "ms to do math");
-		a = System.currentTimeMillis();
+		Probe.phase("do math");
 		
 		graphics.setColor(Color.getHSBColor(hue, 1, 1));
 		graphics.fillOval(middle-size/2, middle-size/2, size, size);
@@ -85,16 +84,15 @@ public class Orbit implements Piece{
 			list.clear();
 			list.addAll(nextGen);
 		}
-		System.out.println("Size: " + list.size()); // = planets ^ orbits
+		Probe.value("planets", all.size());
 		Collections.sort(all, Comparator.comparing(pl -> -pl.gen));
+		Palette.ColorCache colors = new Palette.ColorCache();
 		for(Planet pl : all) {
-			graphics.setColor(Color.getHSBColor(hue + pl.gen*(hueVar/orbits), 1, 1));
+			graphics.setColor(colors.get(Palette.hsb(hue + pl.gen*(hueVar/orbits), 1, 1)));
 			int radius = (int) (size*Math.pow(decSize, pl.gen));
 			graphics.fillOval(pl.x - radius/2, pl.y - radius/2, radius, radius);
 		}
-		System.out.println(System.currentTimeMillis()-a + "ms to draw dots");
-		System.out.println("Done.");
-		System.out.println();
+		Probe.phase("draw dots");
 		
 		return image;
 	}
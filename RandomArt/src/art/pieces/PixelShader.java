@@ -0,0 +1,31 @@
+package art.pieces;
+
+/**
+ * A piece, or part of a piece, where the color of every pixel only depends on its position.
+ * <br> Since pixels don't depend on each other, they can be computed in any order and on any thread by
+ * {@link TileRenderer}, and the image stays the same.
+ */
+public interface PixelShader {
+	/**
+	 * @return The ARGB color of the pixel at (x, y).
+	 */
+	int shade(int x, int y);
+
+	/**
+	 * Computes a horizontal run of pixels, <code>out[offset + i] = shade(x + i, y)</code>.
+	 * <br> It can be overridden to share work between neighbouring pixels, as long as it gives the same colors.
+	 */
+	default void shadeRow(int x, int y, int width, int[] out, int offset) {
+		for(int i = 0; i < width; i++)
+			out[offset + i] = shade(x + i, y);
+	}
+
+	/**
+	 * Computes a rectangle of pixels row by row, <code>out[offset + j*stride + i] = shade(x + i, y + j)</code>.
+	 * <br> It can be overridden to share work, or scratch memory, between the rows of a tile.
+	 */
+	default void shadeTile(int x, int y, int width, int height, int[] out, int offset, int stride) {
+		for(int j = 0; j < height; j++)
+			shadeRow(x, y + j, width, out, offset + j*stride);
+	}
+}
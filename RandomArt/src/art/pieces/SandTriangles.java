@@ -10,12 +10,19 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 
-import art.Main;
 import art.Piece;
+import art.RenderContext;
+import art.util.DensityBuffer;
+import art.util.IntRaster;
 import art.util.OpenSimplexNoise;
+import art.util.PointSet;
 import art.util.PoissonDisk.PVector;
+import art.util.Probe;
 
 public class SandTriangles  implements Piece{
+	/** The amount of grains placed and moved at once, so the sand amount isn't limited by the memory. */
+	private static final int SAND_BLOCK = 1 << 20;
+	
 	/**
 	 * Will generate an image, containg sand that's initially organised in triangles that will be propagated, following the force
 	 * applied to it.
@@ -23,28 +30,30 @@ public class SandTriangles  implements Piece{
 	 * Some parts can be modified to obtain really nice graphics, exemples:
 	 * <br> - trianglesPerLine, the amount of triangles per line
 	 * <br> - sandSize, the size in pixels of a sand. this value should be quite small
-	 * <br> - sandAmount, the amount of sand particles to create for each triangle side
+	 * <br> - sandAmount, the amount of sand particles to create for each triangle side. It can be made a hundred times
+	 * higher for a finer sand, which then mostly costs the time to move each grain.
 	 * <br> - maxForce, the max force that can be applied to the sand when it's at the optimal position
 	 * <br> - bestDist, the best distance from the image center, where the force is the largest.
+	 * <br> - parallel, if the sand is moved by all the threads of the common pool. The image is the same either way.
 	 * <br> - A bunch of stuff can be changed and customised in the sand loop to change how the force is 
 	 * applied to the sand. Some wildly different results can be obtained! 
-	 * @param seed The seed that will generate the pattern.
+	 * <br> The sand isn't drawn grain by grain: the grains landing on each pixel are counted in a {@link DensityBuffer}, which
+	 * then draws them all at once.
+	 * @param context The seed and size that will generate the pattern.
 	 * @return The BufferedImage, that can then be displayed or saved. 
 	 */
 	@Override
-	public BufferedImage generate(long seed) {
-		System.out.println("Generating Lines...");
-		long chr = System.currentTimeMillis();
-		int IMAGE_SIZE = Main.IMAGE_SIZE;
-		rand = new Random(seed);
+	public BufferedImage generate(RenderContext context) {
+		long seed = context.seed;
+		int IMAGE_SIZE = context.size;
+		Random rand = new Random(seed);
 		BufferedImage image = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, BufferedImage.TYPE_INT_ARGB);
 		Graphics2D graphics = (Graphics2D) image.getGraphics();
 		graphics.setColor(new Color(0x111111));
 		graphics.fillRect(0, 0, IMAGE_SIZE, IMAGE_SIZE);
 		graphics.setColor(Color.WHITE);
 		graphics.drawString(seed + "", 5, 10);
-		System.out.println(System.currentTimeMillis()-chr + "ms to generate basic image");
-		chr = System.currentTimeMillis();
+		Probe.phase("generate basic image");
 
 		OpenSimplexNoise noise = new OpenSimplexNoise(seed);
 		int squareSize = (int) (IMAGE_SIZE/Math.sqrt(2)); // The square should have the same area as the white part
@@ -53,58 +62,82 @@ public class SandTriangles  implements Piece{
 		int triangleSize = squareSize/trianglesPerLine;
 		int sandSize = IMAGE_SIZE/1000;
 		int sandAmount = 500;
+		boolean parallel = false;
 		List<PVector> points = new ArrayList<>();
-		
-		List<PVector> sand = new ArrayList<>();
+		List<int[]> lines = new ArrayList<>();
 		
 		for(int i = 0, y = squareStart; y < squareStart+squareSize; y+= triangleSize, i++) {
 			for(int x = (i%2 == 0) ? squareStart : squareStart+triangleSize/2; x < squareStart+squareSize; x+= triangleSize) {
 				points.add(new PVector(x, y));
 				
 				if(x+triangleSize/2 < squareStart+squareSize && y+triangleSize < squareStart+squareSize)
-					drawSandLine(sand, sandSize, sandAmount, x, y, x+triangleSize/2, y+triangleSize);
+					lines.add(new int[] {x, y, x+triangleSize/2, y+triangleSize});
 				if(x-triangleSize/2 >= squareStart && y+triangleSize < squareStart+squareSize)
-					drawSandLine(sand, sandSize, sandAmount, x, y, x-triangleSize/2, y+triangleSize);
+					lines.add(new int[] {x, y, x-triangleSize/2, y+triangleSize});
 				if(x+triangleSize < squareStart+squareSize)
-					drawSandLine(sand, sandSize, sandAmount, x, y, x+triangleSize, y);
+					lines.add(new int[] {x, y, x+triangleSize, y});
 			}
 		}
 		
-		System.out.println(System.currentTimeMillis()-chr + "ms to generate sand");
-		chr = System.currentTimeMillis();
+		// All the grains are placed before any of them gets its random variation. Instead of keeping all of them, rand skips
+		// the placement draws, and a second generator with the same seed places the grains again one block at a time.
+		Random placement = new Random(seed);
+		for(long i = 0; i < 3L * lines.size() * sandAmount; i++)
+			rand.nextFloat();
+		Probe.value("grains", (long) lines.size() * sandAmount);
+		Probe.phase("generate sand");
 		
-		graphics.setColor(new Color(1,1,1,0.03f));
 		float maxForce = 500;
 		float bestDist = squareSize/3;
 		
 		float a = -4 * maxForce / (bestDist*bestDist);
 		float b = 4 * maxForce / bestDist;
 		
-		for(PVector p : sand) {
-			double var = noise.eval(p.x/10f, p.y/10f)/2+0.5; // some noise variation
-			var *= (rand.nextFloat()*0.6f+0.7f); // some random variation
-			double dist = p.dist(IMAGE_SIZE/2, IMAGE_SIZE/2);
-			double force = Math.max(0,a*dist*dist + b*dist);
-			double actualForce = force * (var*0.4+0.6);
-			double forceAngle = Math.atan2(p.y-IMAGE_SIZE/2,p.x-IMAGE_SIZE/2) - Math.PI/2;
-			
-			p.add(
-					(int) (Math.cos(forceAngle) * actualForce), 
-					(int) (Math.sin(forceAngle) * actualForce)
-					);
-			
-			graphics.fillOval(p.x-sandSize/2, p.y-sandSize/2, sandSize, sandSize);
+		int sandColor = new Color(1,1,1,0.03f).getRGB();
+		DensityBuffer density = new DensityBuffer(IMAGE_SIZE, IMAGE_SIZE, sandSize, sandColor);
+		PointSet sand = new PointSet(SAND_BLOCK + sandAmount);
+		float[] variations = new float[SAND_BLOCK + sandAmount];
+		DensityBuffer.Splatter move = (buffer, from, to) -> {
+			for(int i = from; i < to; i++) {
+				int x = sand.x(i), y = sand.y(i);
+				double var = noise.eval(x/10f, y/10f)/2+0.5; // some noise variation
+				var *= variations[i]; // some random variation
+				double dist = sand.dist(i, IMAGE_SIZE/2, IMAGE_SIZE/2);
+				double force = Math.max(0,a*dist*dist + b*dist);
+				double actualForce = force * (var*0.4+0.6);
+				double forceAngle = Math.atan2(y-IMAGE_SIZE/2,x-IMAGE_SIZE/2) - Math.PI/2;
+				
+				x += (int) (Math.cos(forceAngle) * actualForce);
+				y += (int) (Math.sin(forceAngle) * actualForce);
+				
+				buffer.splat(x-sandSize/2, y-sandSize/2);
+			}
+		};
+		DensityBuffer.ParallelSplat threads = parallel ? new DensityBuffer.ParallelSplat(density) : null;
+		for(int line = 0; line < lines.size();) {
+			sand.clear();
+			while(line < lines.size() && (sand.isEmpty() || sand.size() + sandAmount <= SAND_BLOCK)) {
+				int[] l = lines.get(line++);
+				drawSandLine(placement, sand, sandSize, sandAmount, l[0], l[1], l[2], l[3]);
+			}
+			for(int i = 0; i < sand.size(); i++)
+				variations[i] = rand.nextFloat()*0.6f+0.7f;
+			if(parallel)
+				threads.splat(sand.size(), move);
+			else
+				move.splat(density, 0, sand.size());
 		}
+		if(parallel)
+			threads.finish();
+		Probe.phase("move sand");
 		
-		System.out.println(System.currentTimeMillis()-chr + "ms to move and draw sand");
-		chr = System.currentTimeMillis();
+		density.composite(new IntRaster(image));
+		Probe.phase("draw sand");
 		
 		return image;
 	}
 	
-	Random rand;
-	
-	public void drawSandLine(Graphics g, int size, int n, int x1, int y1, int x2, int y2) {
+	public static void drawSandLine(Random rand, Graphics g, int size, int n, int x1, int y1, int x2, int y2) {
 		for(int i = 0; i < n; i++) {
 			float v = rand.nextFloat();
 			float xp = x1 + v*(x2-x1) + size*(rand.nextFloat()-0.5f);
@@ -113,12 +146,12 @@ public class SandTriangles  implements Piece{
 		}
 	}
 	
-	public void drawSandLine(List<PVector> list, int size, int n, int x1, int y1, int x2, int y2) {
+	public static void drawSandLine(Random rand, PointSet list, int size, int n, int x1, int y1, int x2, int y2) {
 		for(int i = 0; i < n; i++) {
 			float v = rand.nextFloat();
 			float xp = x1 + v*(x2-x1) + size*(rand.nextFloat()-0.5f);
 			float yp = y1 + v*(y2-y1) + size*(rand.nextFloat()-0.5f);
-			list.add(new PVector(round(xp-size/2f), round(yp-size/2f)));
+			list.add(round(xp-size/2f), round(yp-size/2f));
 		}
 	}
 
@@ -4,19 +4,19 @@ import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 
-import art.Main;
 import art.Piece;
+import art.RenderContext;
 import art.util.OpenSimplexNoise;
+import art.util.Probe;
 
 public class SexyNoise implements Piece {
 	
 	enum Mode { SINUSOID, BLURRY_CIRCLE }
 	
 	@Override
-	public BufferedImage generate(long seed) {
-		System.out.println("Generating Lines...");
-		long chr = System.currentTimeMillis();
-		int IMAGE_SIZE = Main.IMAGE_SIZE;
+	public BufferedImage generate(RenderContext context) {
+		long seed = context.seed;
+		int IMAGE_SIZE = context.size;
 		BufferedImage image = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, BufferedImage.TYPE_INT_ARGB);
 		Graphics2D graphics = (Graphics2D) image.getGraphics();
 
@@ -25,65 +25,96 @@ public class SexyNoise implements Piece {
 		graphics.setColor(Color.WHITE);
 		graphics.drawString(seed + "", 5, 10);
 		
-		System.out.println(System.currentTimeMillis()-chr + "ms to generate basic image");
-		chr = System.currentTimeMillis();		
+		Probe.phase("generate basic image");
 			
 		OpenSimplexNoise noise = new OpenSimplexNoise(seed);
 		
 		int grading = 1000;
-		Color[] colors = new Color[grading];
+		int[] colors = new int[grading];
 		Color c1 = new Color(0xf01376);
 		Color c2 = new Color(0xf5d75f);
 		for(int i = 0; i < grading; i++)
-			colors[i] = blend(c1, c2, (float)i/grading);
+			colors[i] = blend(c1, c2, (float)i/grading).getRGB() | 0xFF000000;
 
 		Mode mode = Mode.SINUSOID;
 		
 		float smoothness = 190;
 		float cycles = 5;
 		
-		for(int x = 0; x < IMAGE_SIZE; x++) {
-			for(int y = 0; y < IMAGE_SIZE; y++) {
+		TileRenderer.render(image, new NoiseShader(noise, colors, mode, IMAGE_SIZE, smoothness, cycles));
+		Probe.phase("draw pixels");
 
-				Color c = null;
+		return image;
+	}
+	
+	/**
+	 * Colors each pixel from the noise at its position, in one of the two modes.
+	 */
+	static class NoiseShader implements PixelShader {
+		private final OpenSimplexNoise noise;
+		private final int[] colors;
+		private final Mode mode;
+		private final int size;
+		private final float smoothness, cycles;
+		private final double[] xs, ys;
+		/** The noise of a tile, one array per thread. */
+		private final ThreadLocal<double[]> values = ThreadLocal.withInitial(() -> new double[TileRenderer.TILE_SIZE*TileRenderer.TILE_SIZE]);
+		
+		NoiseShader(OpenSimplexNoise noise, int[] colors, Mode mode, int size, float smoothness, float cycles) {
+			this.noise = noise;
+			this.colors = colors;
+			this.mode = mode;
+			this.size = size;
+			this.smoothness = smoothness;
+			this.cycles = cycles;
+			xs = new double[size];
+			ys = new double[size];
+			for(int x = 0; x < size; x++)
+				xs[x] = ys[x] = x/smoothness;
+		}
+		
+		@Override
+		public int shade(int x, int y) {
+			return color(x, y, noise.eval(xs[x], ys[y]));
+		}
+		
+		@Override
+		public void shadeTile(int x, int y, int width, int height, int[] out, int offset, int stride) {
+			// the noise of the whole tile is computed at once, so the lattice is shared between neighbours
+			double[] values = width*height <= TileRenderer.TILE_SIZE*TileRenderer.TILE_SIZE ? this.values.get() : new double[width*height];
+			noise.eval(xs, x, width, ys, y, height, values, 0);
+			for(int j = 0; j < height; j++)
+				for(int i = 0; i < width; i++)
+					out[offset + j*stride + i] = color(x + i, y + j, values[j*width + i]);
+		}
+		
+		private int color(int x, int y, double noiseValue) {
+			int grading = colors.length;
+			switch(mode) {
+			case SINUSOID: 
+			{
+				float value = (float) noiseValue/2+0.5f;
+				value = (float) Math.cos(value*Math.PI*2*cycles)/2+0.5f;
+				value *= grading-1;
+				return colors[(int) value];
+			}
+			
+			case BLURRY_CIRCLE: 
+			default:
+			{
+				float dist = (float) Math.sqrt((x-size/2)*(x-size/2)+(y-size/2)*(y-size/2));
+				float maxDist = size/3f;
 				
-				switch(mode) {
-				case SINUSOID: 
-				{
-					float value = (float) noise.eval(x/smoothness, y/smoothness)/2+0.5f;
-					value = (float) Math.cos(value*Math.PI*2*cycles)/2+0.5f;
-					value *= grading-1;
-					c = colors[(int) value];
-					break;
-				}
+				float value = (float) noiseValue/2+0.5f;
 				
-				case BLURRY_CIRCLE: 
-				{
-					float dist = (float) Math.sqrt((x-IMAGE_SIZE/2)*(x-IMAGE_SIZE/2)+(y-IMAGE_SIZE/2)*(y-IMAGE_SIZE/2));
-					float maxDist = IMAGE_SIZE/3f;
-					
-					float value = (float) noise.eval(x/smoothness, y/smoothness)/2+0.5f;
+				float color = dist/maxDist*grading;
+				color *= 1-value*0.5;
 					
-					float color = dist/maxDist*grading;
-					color *= 1-value*0.5;
-						
-					float color2 = Math.max(Math.min(color, grading-1), 0);
-					c = colors[(int) color2];
-					break;
-				}
-				}
-				
-				
- 
-				
-
-				
-				graphics.setColor(c);
-				graphics.fillRect(x, y, 1, 1);
+				float color2 = Math.max(Math.min(color, grading-1), 0);
+				return colors[(int) color2];
+			}
 			}
 		}
-
-		return image;
 	}
 	
 	private static Color blend( Color c1, Color c2, float ratio ) {
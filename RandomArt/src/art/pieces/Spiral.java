@@ -6,8 +6,11 @@ import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.util.Random;
 
-import art.Main;
 import art.Piece;
+import art.RenderContext;
+import art.util.Palette;
+import art.util.Probe;
+import art.util.StampCache;
 
 public class Spiral implements Piece{
 	/**
@@ -21,14 +24,14 @@ public class Spiral implements Piece{
 	 * <br> - points, the amount of points that should take part in the spiral
 	 * <br> - size, the size of an individual dot
 	 * <br> - nearPoints, the amount of dots orbiting a circle
-	 * @param seed The seed that will generate the pattern.
+	 * <br> Dots only come in two sizes, so they are drawn by a {@link StampCache}.
+	 * @param context The seed and size that will generate the pattern.
 	 * @return The BufferedImage, that can then be displayed or saved. 
 	 */
 	@Override
-	public BufferedImage generate(long seed) {
-		System.out.println("Generating Spiral...");
-		long a = System.currentTimeMillis();
-		int IMAGE_SIZE = Main.IMAGE_SIZE;
+	public BufferedImage generate(RenderContext context) {
+		long seed = context.seed;
+		int IMAGE_SIZE = context.size;
 		Random rand = new Random(seed);
 		BufferedImage image = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, BufferedImage.TYPE_INT_ARGB);
 		Graphics2D graphics = (Graphics2D) image.getGraphics();
@@ -37,8 +40,7 @@ public class Spiral implements Piece{
 		graphics.setColor(Color.BLACK);
 		graphics.setStroke(new BasicStroke((float) (IMAGE_SIZE*0.5*0.003), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
 		graphics.drawString(seed + "", 5, 10);
-		System.out.println(System.currentTimeMillis()-a + "ms to generate basic image");
-		a = System.currentTimeMillis();
+		Probe.phase("generate basic image");
 		
 		
 		float hue = rand.nextFloat();
@@ -49,26 +51,25 @@ public class Spiral implements Piece{
 		float hueInc = 0.15f/points;
 		int size = 40;
 		int nearPoints = 1;
-		System.out.println(System.currentTimeMillis()-a + "ms to do math");
-		a = System.currentTimeMillis();
+		Probe.phase("do math");
 		
+		StampCache stamps = new StampCache(image, graphics);
 		for(int i = 0; i < points; i++) {
 			double angle = i*(Math.PI*2*spins)/points;
 			double distance = radius + i * (increase*spins)/points;
-			graphics.setColor(Color.getHSBColor(hue + i * hueInc, 1, 1));
+			int color = Palette.hsb(hue + i * hueInc, 1, 1);
 			int x1 = IMAGE_SIZE/2 + (int) (Math.cos(angle) * distance);
 			int y1 = IMAGE_SIZE/2 + (int) (Math.sin(angle) * distance);
-			graphics.fillOval(x1, y1, size, size);
+			stamps.fillOval(x1, y1, size, size, color);
 			for(int j = 0; j < nearPoints; j++) {
 				double angle2 = rand.nextDouble()*2*Math.PI;
 				int x2 = (int) (x1 + Math.cos(angle2) * size * 1.5);
 				int y2 = (int) (y1 + Math.sin(angle2) * size * 1.5);
-				graphics.fillOval(x2+size/4, y2+size/4, size/2, size/2);
+				stamps.fillOval(x2+size/4, y2+size/4, size/2, size/2, color);
 			}
 		}
-		System.out.println(System.currentTimeMillis()-a + "ms to draw dots");
-		System.out.println("Done.");
-		System.out.println();
+		Probe.value("stamp hits", stamps.hits());
+		Probe.phase("draw dots");
 		
 		return image;
 	}
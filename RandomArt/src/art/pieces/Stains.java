@@ -4,14 +4,17 @@ import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
-import java.util.ArrayList;
 import java.util.Random;
 
-import art.Main;
 import art.Piece;
+import art.RenderContext;
+import art.util.IntRaster;
 import art.util.OpenSimplexNoise;
-import art.util.PoissonDisk;
-import art.util.PoissonDisk.PVector;
+import art.util.Palette;
+import art.util.PointSet;
+import art.util.PoissonCache;
+import art.util.Probe;
+import art.util.TriangleFan;
 
 public class Stains implements Piece {
 	/**
@@ -27,14 +30,15 @@ public class Stains implements Piece {
 	 * <br> - irregularity1/irregularity2, a shared float through circle iterations of a shape that determine the variation in size of the shape
 	 * <br> - noiseVal1/noiseVal2, another float that determines the variation in size of the shape, but this value is broadly independent for each circle of each shape
 	 * <br> - colorNoise, the variation in color for each triangle of the shape
-	 * @param seed The seed that will generate the pattern.
+	 * <br> All the triangles of a shape are drawn at once by a {@link TriangleFan}, which looks the same as one
+	 * <code>fillPolygon</code> per triangle.
+	 * @param context The seed and size that will generate the pattern.
 	 * @return The BufferedImage, that can then be displayed or saved. 
 	 */
 	@Override
-	public BufferedImage generate(long seed) {
-		System.out.println("Generating Seal...");
-		long a = System.currentTimeMillis();
-		int IMAGE_SIZE = Main.IMAGE_SIZE;
+	public BufferedImage generate(RenderContext context) {
+		long seed = context.seed;
+		int IMAGE_SIZE = context.size;
 		Random rand = new Random(seed);
 		OpenSimplexNoise noise = new OpenSimplexNoise(seed);
 		BufferedImage image = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, BufferedImage.TYPE_INT_ARGB);
@@ -44,34 +48,37 @@ public class Stains implements Piece {
 		graphics.setColor(Color.BLACK);
 		graphics.setStroke(new BasicStroke((float) (IMAGE_SIZE*0.5*0.003), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
 		graphics.drawString(seed + "", 5, 10);
-		System.out.println(System.currentTimeMillis()-a + "ms to generate basic image");
-		a = System.currentTimeMillis();
+		Probe.phase("generate basic image");
 		
 		int drawZone = (int) (IMAGE_SIZE/Math.sqrt(2));
 		int sections = 360;
 		int circles = 20;
 		int separatingDistance = IMAGE_SIZE/10;
-		ArrayList<PVector> points = PoissonDisk.poissonDiskSampling(seed, separatingDistance/3, drawZone-separatingDistance);
-		for(PVector p : points) {
-			p.x += (IMAGE_SIZE-drawZone+separatingDistance)/2;
-			p.y += (IMAGE_SIZE-drawZone+separatingDistance)/2;
-		}
-		System.out.println("Found " + points.size() + " shapes to draw");
+		PointSet points = PoissonCache.shared().points(seed, separatingDistance/3, drawZone-separatingDistance);
+		points.translate((IMAGE_SIZE-drawZone+separatingDistance)/2, (IMAGE_SIZE-drawZone+separatingDistance)/2);
+		Probe.value("shapes", points.size());
+		Probe.phase("generate points");
 		
 		float mainHue = rand.nextFloat();
 		
+		TriangleFan fan = new TriangleFan(new IntRaster(image));
+		// the end of a triangle is the start of the next one: its noise is kept instead of computed again
+		double[] noiseVals = new double[circles];
 		for(int shape = 0; shape < points.size(); shape++) {
-			PoissonDisk.PVector p = points.get(shape);
+			int px = points.x(shape), py = points.y(shape);
 			float hue = (mainHue+rand.nextFloat()*0.3f)%1;
 			double angleDif = Math.PI*2/sections;
+			double irregularity = Double.NaN;
 			for(double angle = 0; angle < Math.PI*2-angleDif; angle += angleDif) {
 				double cos1 = Math.cos(angle);
 				double cos2 = Math.cos(angle+angleDif);
 				double sin1 = Math.sin(angle);
 				double sin2 = Math.sin(angle+angleDif);
+				boolean first = angle == 0;
 	
-				double irregularity1 = (noise.eval(100+cos1, sin1, shape))+1;
+				double irregularity1 = first ? (noise.eval(100+cos1, sin1, shape))+1 : irregularity;
 				double irregularity2 = (noise.eval(100+cos2, sin2, shape))+1;
+				irregularity = irregularity2;
 							
 				
 				for(int i = 0; i < circles; i++) {
@@ -80,42 +87,29 @@ public class Stains implements Piece {
 					double y1 = sin1 * separatingDistance*0.5;
 					double y2 = sin2 * separatingDistance*0.5;
 					
-					double noiseVal1 = (1+noise.eval(cos1, sin1, i*0.4, shape))/2;
+					double noiseVal1 = first ? (1+noise.eval(cos1, sin1, i*0.4, shape))/2 : noiseVals[i];
 					double noiseVal2 = (1+noise.eval(cos2, sin2, i*0.4, shape))/2;
+					noiseVals[i] = noiseVal2;
 					
 					
 					double colorNoise = noise.eval(cos1, sin1*2, i)/20;
-					graphics.setColor(hsbaColor((float) (hue+colorNoise), 0.8f, 0.8f, 0.1f+0.7f/circles));
 					
-					graphics.fillPolygon(new int[] {
-							p.x,
-							p.x+(int) (x1 * noiseVal1*irregularity1),
-							p.x+(int) (x2 * noiseVal2*irregularity2)
-					}, new int[] {
-							p.y,
-							p.y+(int) (y1 * noiseVal1*irregularity1),
-							p.y+(int) (y2 * noiseVal2*irregularity2)
-					}, 3);
+					fan.add(
+							px+(int) (x1 * noiseVal1*irregularity1),
+							py+(int) (y1 * noiseVal1*irregularity1),
+							px+(int) (x2 * noiseVal2*irregularity2),
+							py+(int) (y2 * noiseVal2*irregularity2),
+							Palette.hsba((float) (hue+colorNoise), 0.8f, 0.8f, 0.1f+0.7f/circles));
 				}
 			}
-			
-			if((shape+1)%5==0) {
-				System.out.println("Drew " + (shape+1) + "/" + points.size() + " in " + (System.currentTimeMillis()-a) + "ms");
-				a = System.currentTimeMillis();
-			}
+			Probe.count("triangles", fan.size());
+			fan.fill(px, py);
 		}
 		
 		
 		
-		System.out.println(System.currentTimeMillis()-a + "ms to draw circle");
-		System.out.println("Done.");
-		System.out.println();
+		Probe.phase("draw circle");
 		
 		return image;
 	}
-	
-	private static Color hsbaColor(float h, float s, float b, float alpha) {
-		Color c1 = Color.getHSBColor(h, s, b);
-		return new Color(c1.getRed()/255f, c1.getGreen()/255f, c1.getBlue()/255f, alpha);
-	}
 }
@@ -0,0 +1,74 @@
+package art.pieces;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import art.util.IntRaster;
+
+/**
+ * Runs a {@link PixelShader} over a whole image, split in square tiles that are spread over the cores.
+ * <br> Every pixel is written exactly once, by the shader alone, so the result doesn't depend on the amount of threads.
+ */
+public class TileRenderer {
+
+	public static final int TILE_SIZE = 64;
+
+	/**
+	 * Shades every pixel of the image, using the common fork-join pool.
+	 */
+	public static void render(BufferedImage image, PixelShader shader) {
+		render(image, shader, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Shades every pixel of the image, using the given pool.
+	 * @param image A TYPE_INT_ARGB or TYPE_INT_RGB image.
+	 * @param shader Gives the color of each pixel.
+	 * @param pool The threads on which the tiles are computed.
+	 */
+	public static void render(BufferedImage image, PixelShader shader, ForkJoinPool pool) {
+		IntRaster raster = new IntRaster(image);
+		int[] pixels = raster.pixels;
+		int width = raster.width;
+		int height = raster.height;
+		int tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+		int tilesY = (height + TILE_SIZE - 1) / TILE_SIZE;
+		pool.invoke(new Tiles(shader, pixels, width, height, tilesX, 0, tilesX*tilesY));
+	}
+
+	private static class Tiles extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final PixelShader shader;
+		private final int[] pixels;
+		private final int width, height, tilesX;
+		private final int from, to;
+
+		Tiles(PixelShader shader, int[] pixels, int width, int height, int tilesX, int from, int to) {
+			this.shader = shader;
+			this.pixels = pixels;
+			this.width = width;
+			this.height = height;
+			this.tilesX = tilesX;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if(to - from > 1) {
+				int middle = (from + to) >>> 1;
+				invokeAll(
+						new Tiles(shader, pixels, width, height, tilesX, from, middle),
+						new Tiles(shader, pixels, width, height, tilesX, middle, to));
+				return;
+			}
+			int x0 = (from % tilesX) * TILE_SIZE;
+			int y0 = (from / tilesX) * TILE_SIZE;
+			int tileWidth = Math.min(TILE_SIZE, width - x0);
+			int tileHeight = Math.min(TILE_SIZE, height - y0);
+			shader.shadeTile(x0, y0, tileWidth, tileHeight, pixels, y0 * width + x0, width);
+		}
+	}
+}
@@ -6,8 +6,9 @@ import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.util.Random;
 
-import art.Main;
 import art.Piece;
+import art.RenderContext;
+import art.util.Probe;
 
 public class Triangle implements Piece{
 
@@ -20,14 +21,13 @@ public class Triangle implements Piece{
 	 * <br> - lineAmount, it determines the amount of lines on a triangle. Increasing this number will increase the time needed to generate,
 	 * so instead of setting it to a very high value (2000 +), increasing the opacity and lowering the opacity can give a quicker result.
 	 * <br> - alpha, it will change the opacity of each line, so the higher the amount of lines, the lower this value should be.
-	 * @param seed The seed that will generate the pattern.
+	 * @param context The seed and size that will generate the pattern.
 	 * @return The BufferedImage, that can then be displayed or saved. 
 	 */
 	@Override
-	public BufferedImage generate(long seed) {
-		System.out.println("Generating Triangle...");
-		long a = System.currentTimeMillis();
-		int IMAGE_SIZE = Main.IMAGE_SIZE;
+	public BufferedImage generate(RenderContext context) {
+		long seed = context.seed;
+		int IMAGE_SIZE = context.size;
 		Random rand = new Random(seed);
 		BufferedImage image = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, BufferedImage.TYPE_INT_ARGB);
 		Graphics2D graphics = (Graphics2D) image.getGraphics();
@@ -36,8 +36,7 @@ public class Triangle implements Piece{
 		graphics.setColor(Color.BLACK);
 		graphics.drawString(seed + "", 5, 10);
 		graphics.setStroke(new BasicStroke((float) (IMAGE_SIZE*0.5*0.001), BasicStroke.CAP_BUTT, BasicStroke.JOIN_ROUND));
-		System.out.println(System.currentTimeMillis()-a + "ms to generate basic image");
-		a = System.currentTimeMillis();
+		Probe.phase("generate basic image");
 		
 		Color c = Color.getHSBColor(rand.nextFloat(), 1, 0.5f);
 		int red = c.getRed();
@@ -47,8 +46,7 @@ public class Triangle implements Piece{
 		int lineAmount = 600; // The amount of line on a side of the triangle
 		Color color = new Color(red, green, blue, alpha);
 		int squareSize = (int) (IMAGE_SIZE/Math.sqrt(2)); // Le carre aura une aire egale a la partie blanche
-		System.out.println(System.currentTimeMillis()-a + "ms to do math");
-		a = System.currentTimeMillis();
+		Probe.phase("do math");
 		
 		graphics.setColor(color);
 		for(double i = 0; i < squareSize/2.0; i+=squareSize/(2.0*lineAmount)) {
@@ -71,10 +69,8 @@ public class Triangle implements Piece{
 					(int) (IMAGE_SIZE/2 - i) + offY
 					);
 		}
-		System.out.println(System.currentTimeMillis()-a + "ms to draw lines");
+		Probe.phase("draw lines");
 		
-		System.out.println("Done.");
-		System.out.println();
 		
 		return image;
 	}
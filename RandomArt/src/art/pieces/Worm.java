@@ -10,9 +10,10 @@ import java.awt.geom.PathIterator;
 import java.awt.image.BufferedImage;
 import java.util.Random;
 
-import art.Main;
 import art.Piece;
+import art.RenderContext;
 import art.util.PoissonDisk.PVector;
+import art.util.Probe;
 
 public class Worm implements Piece {
 	/**
@@ -29,14 +30,13 @@ public class Worm implements Piece {
 	 * <br> - barLength, will change the size of an individual line.
 	 * <br> - barSize, will change inc (see below).
 	 * <br> - inc, increasing it will put more space between each line.
-	 * @param seed The seed that will generate the pattern.
+	 * @param context The seed and size that will generate the pattern.
 	 * @return The BufferedImage, that can then be displayed or saved. 
 	 */
 	@Override
-	public BufferedImage generate(long seed) {
-		System.out.println("Generating Worm...");
-		long a = System.currentTimeMillis();
-		int IMAGE_SIZE = Main.IMAGE_SIZE;
+	public BufferedImage generate(RenderContext context) {
+		long seed = context.seed;
+		int IMAGE_SIZE = context.size;
 		Random rand = new Random(seed);
 		BufferedImage image = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, BufferedImage.TYPE_INT_ARGB);
 		Graphics2D graphics = (Graphics2D) image.getGraphics();
@@ -46,8 +46,7 @@ public class Worm implements Piece {
 		graphics.setColor(Color.WHITE);
 		graphics.drawString(seed + "", 5, 10);
 		graphics.setStroke(new BasicStroke((float) (IMAGE_SIZE*0.5*0.008), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
-		System.out.println(System.currentTimeMillis()-a + "ms to generate basic image");
-		a = System.currentTimeMillis();
+		Probe.phase("generate basic image");
 
 		// Math, determiner les points pour la courbe
 		int squareSize = (int) (IMAGE_SIZE/Math.sqrt(2));
@@ -65,7 +64,7 @@ public class Worm implements Piece {
 		for(int i = 0; i < points.length; i++)
 			do {
 				ok = true;
-				System.out.println("Making point " + i);
+				Probe.count("point tries", 1);
 				points[i] = new PVector(squareStart + rand.nextFloat() * squareSize, squareStart + rand.nextFloat() * squareSize);
 				for(int j = 0; j < i; j++)
 					if(points[j].dist(points[i]) < minDistance)
@@ -78,11 +77,11 @@ public class Worm implements Piece {
 		
 		// Math, determiner les points aleatoires
 		int minDotDistance = Math.max(bounds.width, bounds.height) / dots.length;
-		System.out.println("Minimum dot distance is " + minDotDistance);
+		Probe.value("min dot distance", minDotDistance);
 		for(int i = 0; i < dots.length; i++)
 			do {
 				ok = true;
-				System.out.println("Making dot " + i);
+				Probe.count("dot tries", 1);
 				dots[i] = new PVector(
 						bounds.x + rand.nextFloat() * bounds.width, 
 						bounds.y + rand.nextFloat() * bounds.height);
@@ -91,8 +90,7 @@ public class Worm implements Piece {
 						ok = false;
 			} while(!ok);
 
-		System.out.println(System.currentTimeMillis()-a + "ms to do math");
-		a = System.currentTimeMillis();
+		Probe.phase("do math");
 
 		// Dessiner la courbe, et les cercles
 		
@@ -134,23 +132,17 @@ public class Worm implements Piece {
 		// Calculer l'equation de la droite
 		double m = (y2-y1) / (x2-x1);
 		double p = y1 - m * x1;
-		System.out.println("M: " + m + " / P :" + p);
 		double barSize = (int) (IMAGE_SIZE * 0.5 * 0.01);
 		double barLength = (int) (IMAGE_SIZE * 0.5 * 0.05);
 		// Calculer les degres etc.
 		
-		System.out.println("Compare " + Math.abs(x1/x2) + " and " + Math.abs(y1/y2));
-		
 		if(Math.abs(x1/x2) < Math.abs(y1/y2)) { // Verticalish line
 			double angle = Math.atan(Math.abs(y1 - y2) / Math.abs(x1 - x2)) + Math.PI/2.0;
-			System.out.println("Angle Vertical " + angle + " (or " + Math.toDegrees(angle) + " in degrees)");
 			double inc = Math.abs(Math.cos(angle) * barSize * 3.0);
 			double sin = (int) (Math.sin(angle) * barLength);
 			double cos = (int) (Math.cos(angle) * barLength);
 			double start =  Math.min(y1, y2);
 			double end = Math.max(y1, y2);
-			System.out.println("Start at Y " + start + " until " + end + " and increase by " + inc);
-			System.out.println("Will need " + ((start - end) / inc) + " stripes");
 			if(inc > 1)
 				for(double y = start; y < end; y += inc) {
 					int x = (int) ((y-p)/m); 
@@ -160,14 +152,11 @@ public class Worm implements Piece {
 		
 		else { // Horizontalish line
 			double angle = Math.atan(Math.abs(x1 - x2) / Math.abs(y1 - y2)) + Math.PI/2.0;
-			System.out.println("Angle Horizontal " + angle + " (or " + Math.toDegrees(angle) + " in degrees)");
 			double inc = Math.abs(Math.cos(angle) * barSize * 3.0);
 			double sin = Math.sin(angle) * barLength;
 			double cos = Math.cos(angle) * barLength;
 			double start = Math.min(x1, x2);
 			double end = Math.max(x1, x2);
-			System.out.println("Start at X " + start + " until " + end + " and increase by " + inc);
-			System.out.println("Will need " + ((start-end) / inc) + " stripes");
 			if(inc > 1)
 				for(double x = start; x < end; x += inc) {
 					double y = m*x+p;
@@ -178,10 +167,8 @@ public class Worm implements Piece {
 			graphics.setColor(Color.RED);
 			graphics.drawLine((int)x1, (int)y1, (int)x2, (int) y2);
 		}
-		System.out.println(System.currentTimeMillis()-a + "ms to draw points");
+		Probe.phase("draw points");
 		
-		System.out.println("Done.");
-		System.out.println();
 		
 		return image;
 	}
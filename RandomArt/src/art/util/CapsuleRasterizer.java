@@ -0,0 +1,111 @@
+package art.util;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Paints a disc swept along a line, one pixel step at a time, with a color per step, straight into an {@link IntRaster}.
+ * <br> The result is the same as calling <code>fillOval</code> with an opaque color at every step, each disc covering the
+ * previous ones, but each pixel is written once: every row is filled from the last disc to the first, only where the
+ * later discs didn't already paint.
+ * <br> The shape of a disc is taken from Java2D once per diameter, so the edges match <code>fillOval</code> exactly.
+ */
+public class CapsuleRasterizer {
+
+	private final IntRaster raster;
+	/** For each diameter, the start and end of the disc on each of its rows, relative to its left side. */
+	private final Map<Integer, int[][]> stamps = new HashMap<>();
+
+	public CapsuleRasterizer(IntRaster raster) {
+		this.raster = raster;
+	}
+
+	/**
+	 * Paints the discs of the given diameter centered on (x + j*dx, y + j*dy) for j from 0 to steps excluded, disc j being
+	 * painted with <code>colors[j]</code>, which must be opaque. Discs are placed like
+	 * <code>fillOval(cx - width/2, cy - width/2, width, width)</code> would.
+	 * @param dx The horizontal step, -1, 0 or 1.
+	 * @param dy The vertical step, -1 or 1.
+	 */
+	public void sweep(int x, int y, int dx, int dy, int steps, int width, int[] colors) {
+		if(Math.abs(dx) > 1 || Math.abs(dy) != 1)
+			throw new IllegalArgumentException("Steps must go one row at a time, got " + dx + ", " + dy);
+		if(steps <= 0 || width <= 0)
+			return;
+		int[][] stamp = stamp(width);
+		int[] starts = stamp[0], ends = stamp[1];
+		int half = width/2;
+		int top = Math.min(y, y + (steps-1)*dy) - half;
+		int bottom = Math.max(y, y + (steps-1)*dy) - half + width;
+		for(int row = Math.max(0, top); row < Math.min(raster.height, bottom); row++) {
+			// disc j covers this row with its row k = base - j*dy
+			int base = row - y + half;
+			int jLow = dy > 0 ? base - width + 1 : -base;
+			int jHigh = dy > 0 ? base : width - 1 - base;
+			jLow = Math.max(jLow, 0);
+			jHigh = Math.min(jHigh, steps - 1);
+			int left = x - half;
+			int lo = 0, hi = 0;
+			boolean painted = false;
+			for(int j = jHigh; j >= jLow; j--) {
+				int k = base - j*dy;
+				if(starts[k] >= ends[k])
+					continue;
+				int a = left + j*dx + starts[k], b = left + j*dx + ends[k];
+				int color = colors[j];
+				if(!painted) {
+					raster.fillRow(a, row, b - a, color);
+					lo = a;
+					hi = b;
+					painted = true;
+				} else if(b < lo || a > hi) {
+					// the spans of this row aren't in one piece, paint all of them in order instead
+					for(int i = jLow; i <= jHigh; i++) {
+						int ki = base - i*dy;
+						raster.fillRow(left + i*dx + starts[ki], row, ends[ki] - starts[ki], colors[i]);
+					}
+					break;
+				} else {
+					if(a < lo)
+						raster.fillRow(a, row, lo - a, color);
+					if(b > hi)
+						raster.fillRow(hi, row, b - hi, color);
+					lo = Math.min(lo, a);
+					hi = Math.max(hi, b);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Draws a disc with Java2D and reads back the pixels it covers on each row.
+	 */
+	private int[][] stamp(int width) {
+		return stamps.computeIfAbsent(width, w -> {
+			// one pixel of margin around the oval, in case it goes over its bounds
+			BufferedImage image = new BufferedImage(w + 2, w + 2, BufferedImage.TYPE_INT_ARGB);
+			Graphics2D graphics = image.createGraphics();
+			graphics.setColor(Color.BLACK);
+			graphics.fillOval(1, 1, w, w);
+			graphics.dispose();
+			int[] pixels = IntRaster.pixels(image);
+			int[] starts = new int[w], ends = new int[w];
+			for(int k = 0; k < w; k++) {
+				int start = -1, end = -1;
+				for(int i = 0; i < w + 2; i++) {
+					if(pixels[(k + 1)*(w + 2) + i] != 0) {
+						if(start < 0)
+							start = i - 1;
+						end = i;
+					}
+				}
+				starts[k] = start < 0 ? 0 : start;
+				ends[k] = start < 0 ? 0 : end;
+			}
+			return new int[][] {starts, ends};
+		});
+	}
+}
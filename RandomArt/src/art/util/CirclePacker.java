@@ -0,0 +1,207 @@
+package art.util;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Places circles in a rectangle without them overlapping, checking each candidate against the circles of the
+ * neighbouring cells of a grid only.
+ * <br> Circles are given by their center and diameter, in integer pixels. Two circles overlap when the distance between
+ * their centers is strictly lower than half the sum of their diameters, rounded down.
+ * <br> The packer can also keep a map of the free space, made of square blocks that aren't fully covered by a circle,
+ * so candidates can be picked where there is still room instead of anywhere in the rectangle.
+ */
+public class CirclePacker {
+
+	private final int left, top, width, height;
+	private final int cellSize, columns, rows;
+
+	private int[] xs = new int[64], ys = new int[64], sizes = new int[64];
+	private int count, maxPlaced;
+	private double coveredArea;
+
+	// linked lists of the circles whose center is in each grid cell
+	private final int[] cellHead;
+	private int[] next = new int[64];
+
+	// free space map, null when disabled
+	private int blockSize, blockColumns;
+	private int[] freeBlocks, freeSlot;
+	private int freeCount;
+
+	/**
+	 * @param left The left side of the rectangle circles must stay in.
+	 * @param top The top side of the rectangle circles must stay in.
+	 * @param maxSize The usual biggest diameter, which sets the grid size. Bigger circles still work but make queries slower.
+	 */
+	public CirclePacker(int left, int top, int width, int height, int maxSize) {
+		if(width < 1 || height < 1)
+			throw new IllegalArgumentException("Empty rectangle " + width + "x" + height);
+		this.left = left;
+		this.top = top;
+		this.width = width;
+		this.height = height;
+		this.cellSize = Math.max(1, maxSize);
+		this.columns = width / cellSize + 1;
+		this.rows = height / cellSize + 1;
+		cellHead = new int[columns*rows];
+		Arrays.fill(cellHead, -1);
+	}
+
+	/**
+	 * Starts keeping track of the free space, as square blocks of the given size. Circles already placed are taken into account.
+	 * <br> Smaller blocks follow the circles more closely, but take more memory and time to update.
+	 */
+	public void enableFreeSpace(int blockSize) {
+		this.blockSize = Math.max(1, blockSize);
+		blockColumns = (width + this.blockSize - 1) / this.blockSize;
+		int blocks = blockColumns * ((height + this.blockSize - 1) / this.blockSize);
+		freeBlocks = new int[blocks];
+		freeSlot = new int[blocks];
+		for(int b = 0; b < blocks; b++) {
+			freeBlocks[b] = b;
+			freeSlot[b] = b;
+		}
+		freeCount = blocks;
+		for(int i = 0; i < count; i++)
+			cover(i);
+	}
+
+	public int size() {
+		return count;
+	}
+
+	public int x(int i) {
+		return xs[i];
+	}
+
+	public int y(int i) {
+		return ys[i];
+	}
+
+	public int diameter(int i) {
+		return sizes[i];
+	}
+
+	/**
+	 * @return true if a circle of the given diameter centered on (x, y) stays in the rectangle and overlaps no other circle.
+	 */
+	public boolean fits(int x, int y, int size) {
+		if(x - size/2 < left || x + size/2 > left + width || y - size/2 < top || y + size/2 > top + height)
+			return false;
+		return !overlaps(x, y, size);
+	}
+
+	/**
+	 * @return true if a circle of the given diameter centered on (x, y) overlaps one of the circles, wherever it is.
+	 */
+	public boolean overlaps(int x, int y, int size) {
+		// centers of overlapping circles are closer than (maxPlaced + size)/2
+		int reach = ((maxPlaced + size)/2 + cellSize - 1) / cellSize;
+		int cx = cellX(x), cy = cellY(y);
+		for(int gy = Math.max(0, cy - reach); gy <= Math.min(rows - 1, cy + reach); gy++) {
+			for(int gx = Math.max(0, cx - reach); gx <= Math.min(columns - 1, cx + reach); gx++) {
+				for(int i = cellHead[gy*columns + gx]; i >= 0; i = next[i]) {
+					long dx = xs[i] - x, dy = ys[i] - y;
+					long limit = (sizes[i] + size)/2;
+					if(dx*dx + dy*dy < limit*limit)
+						return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Places a circle without checking anything.
+	 * @return The index of the circle.
+	 */
+	public int add(int x, int y, int size) {
+		if(count == xs.length) {
+			xs = Arrays.copyOf(xs, count*2);
+			ys = Arrays.copyOf(ys, count*2);
+			sizes = Arrays.copyOf(sizes, count*2);
+			next = Arrays.copyOf(next, count*2);
+		}
+		int i = count++;
+		xs[i] = x;
+		ys[i] = y;
+		sizes[i] = size;
+		maxPlaced = Math.max(maxPlaced, size);
+		int cell = cellY(y)*columns + cellX(x);
+		next[i] = cellHead[cell];
+		cellHead[cell] = i;
+		coveredArea += Math.PI * size * size / 4;
+		if(freeBlocks != null)
+			cover(i);
+		return i;
+	}
+
+	/**
+	 * Picks a random position in a block of the free space map, which must have been enabled.
+	 * @param position Receives the x and y of the position.
+	 * @return false if there is no free space left, in which case nothing is drawn from rand.
+	 */
+	public boolean sampleFree(Random rand, int[] position) {
+		if(freeBlocks == null)
+			throw new IllegalStateException("The free space map isn't enabled");
+		if(freeCount == 0)
+			return false;
+		int block = freeBlocks[rand.nextInt(freeCount)];
+		int bx = left + block % blockColumns * blockSize;
+		int by = top + block / blockColumns * blockSize;
+		position[0] = bx + rand.nextInt(Math.min(blockSize, left + width - bx));
+		position[1] = by + rand.nextInt(Math.min(blockSize, top + height - by));
+		return true;
+	}
+
+	/**
+	 * @return The amount of blocks of the free space map not yet covered by a circle, or -1 if it isn't enabled.
+	 */
+	public int freeBlocks() {
+		return freeBlocks == null ? -1 : freeCount;
+	}
+
+	/**
+	 * @return The part of the rectangle covered by circles, between 0 and 1 as circles don't overlap.
+	 */
+	public double fillRatio() {
+		return coveredArea / ((double) width * height);
+	}
+
+	private int cellX(int x) {
+		return Math.max(0, Math.min(columns - 1, (x - left) / cellSize));
+	}
+
+	private int cellY(int y) {
+		return Math.max(0, Math.min(rows - 1, (y - top) / cellSize));
+	}
+
+	/**
+	 * Removes from the free space the blocks that are fully inside circle i: no circle can have its center there anymore.
+	 */
+	private void cover(int i) {
+		int x = xs[i], y = ys[i];
+		long r = sizes[i]/2;
+		int blockRows = freeSlot.length / blockColumns;
+		int bx0 = Math.max(0, (int) ((x - r - left) / blockSize)), bx1 = Math.min(blockColumns - 1, (int) ((x + r - left) / blockSize));
+		int by0 = Math.max(0, (int) ((y - r - top) / blockSize)), by1 = Math.min(blockRows - 1, (int) ((y + r - top) / blockSize));
+		for(int by = by0; by <= by1; by++) {
+			for(int bx = bx0; bx <= bx1; bx++) {
+				int block = by*blockColumns + bx;
+				if(freeSlot[block] < 0)
+					continue;
+				// the block is covered when its farthest corner is in the circle
+				long fx = Math.max(Math.abs(left + bx*blockSize - x), Math.abs(left + (bx+1)*blockSize - x));
+				long fy = Math.max(Math.abs(top + by*blockSize - y), Math.abs(top + (by+1)*blockSize - y));
+				if(fx*fx + fy*fy < r*r) {
+					int slot = freeSlot[block];
+					int last = freeBlocks[--freeCount];
+					freeBlocks[slot] = last;
+					freeSlot[last] = slot;
+					freeSlot[block] = -1;
+				}
+			}
+		}
+	}
+}
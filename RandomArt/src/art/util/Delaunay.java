@@ -0,0 +1,518 @@
+package art.util;
+
+import java.util.Arrays;
+
+/**
+ * The Delaunay triangulation of the points of a {@link PointSet}, and its dual the Voronoi diagram.
+ * <br> Points are added by increasing distance from a seed triangle, and the convex hull is swept around them, flipping
+ * triangles as they are added. This takes O(n log n), the sort being the slowest part.
+ * <br> The triangulation is stored as half-edges: triangle t is made of half-edges 3t, 3t+1 and 3t+2, half-edge e going
+ * from point {@link #point(int) point(e)} to the start of the next half-edge of its triangle, and
+ * {@link #opposite(int) opposite(e)} being the same edge in the neighbouring triangle, or -1 on the hull.
+ * <br> Coordinates are integers, so orientation and in-circle tests are done exactly with longs, as long as points are
+ * less than 2^14 pixels apart. Duplicated points are left out of the triangulation. When all the points are on a line,
+ * there is no triangle.
+ */
+public class Delaunay {
+
+	private final PointSet points;
+	private int[] triangles;
+	private int[] halfedges;
+	private int triangleCount;
+	/** Points of the convex hull, counter-clockwise on screen. */
+	private int[] hull;
+	/** For each point, a half-edge ending at it, the one on the hull for hull points, or -1 if the point was left out. */
+	private final int[] inedges;
+	private final int[] hullIndex;
+
+	// only used while building
+	private int[] hullPrev, hullNext, hullTri, hullHash;
+	private int hullStart;
+	private double cx, cy;
+	private int[] edgeStack = new int[512];
+
+	public Delaunay(PointSet points) {
+		this.points = points;
+		int n = points.size();
+		int maxTriangles = Math.max(2*n - 5, 0);
+		triangles = new int[maxTriangles*3];
+		halfedges = new int[maxTriangles*3];
+		inedges = new int[n];
+		hullIndex = new int[n];
+		Arrays.fill(inedges, -1);
+		Arrays.fill(hullIndex, -1);
+		triangulate();
+		triangles = Arrays.copyOf(triangles, triangleCount*3);
+		halfedges = Arrays.copyOf(halfedges, triangleCount*3);
+		for(int e = 0; e < triangles.length; e++) {
+			int p = triangles[next(e)];
+			if(halfedges[e] == -1 || inedges[p] == -1)
+				inedges[p] = e;
+		}
+		for(int i = 0; i < hull.length; i++)
+			hullIndex[hull[i]] = i;
+		hullPrev = hullNext = hullTri = hullHash = edgeStack = null;
+	}
+
+	public PointSet points() {
+		return points;
+	}
+
+	public int triangleCount() {
+		return triangleCount;
+	}
+
+	/**
+	 * @return The point half-edge e starts from.
+	 */
+	public int point(int e) {
+		return triangles[e];
+	}
+
+	/**
+	 * @return The half-edge going the other way in the neighbouring triangle, or -1 if e is on the hull.
+	 */
+	public int opposite(int e) {
+		return halfedges[e];
+	}
+
+	/**
+	 * @return The next half-edge of the triangle of e.
+	 */
+	public static int next(int e) {
+		return e % 3 == 2 ? e - 2 : e + 1;
+	}
+
+	/**
+	 * @return The points of the convex hull, in order.
+	 */
+	public int[] hull() {
+		return hull.clone();
+	}
+
+	/**
+	 * @return Every edge of the triangulation once, as pairs of point indices: {a0, b0, a1, b1...}.
+	 */
+	public int[] edges() {
+		int count = 0;
+		for(int e = 0; e < halfedges.length; e++)
+			if(e > halfedges[e])
+				count++;
+		int[] edges = new int[count*2];
+		int k = 0;
+		for(int e = 0; e < halfedges.length; e++) {
+			if(e > halfedges[e]) {
+				edges[k++] = triangles[e];
+				edges[k++] = triangles[next(e)];
+			}
+		}
+		return edges;
+	}
+
+	/**
+	 * Finds the points linked to a point by an edge, going around it.
+	 * @param neighbours Receives the indices of the neighbours, must be big enough for all of them.
+	 * @return The amount of neighbours.
+	 */
+	public int neighbours(int point, int[] neighbours) {
+		int e0 = inedges[point];
+		if(e0 < 0)
+			return 0;
+		int found = 0;
+		int e = e0;
+		do {
+			neighbours[found++] = triangles[e];
+			e = halfedges[next(e)];
+			if(e == -1) {
+				// hull point: the last neighbour is the next point of the hull
+				int last = hull[(hullIndex[point] + 1) % hull.length];
+				if(last != neighbours[found-1])
+					neighbours[found++] = last;
+				break;
+			}
+		} while(e != e0);
+		return found;
+	}
+
+	/**
+	 * @return The x of the center of the circle going through the 3 points of triangle t, a vertex of the Voronoi diagram.
+	 */
+	public double circumcenterX(int t) {
+		return circumcenter(t, true);
+	}
+
+	/**
+	 * @return The y of the center of the circle going through the 3 points of triangle t, a vertex of the Voronoi diagram.
+	 */
+	public double circumcenterY(int t) {
+		return circumcenter(t, false);
+	}
+
+	/**
+	 * Gives the polygon of the Voronoi cell of a point, made of the circumcenters of the triangles around it.
+	 * @param xs Receives the x of each vertex, must be big enough for all of them.
+	 * @param ys Receives the y of each vertex.
+	 * @return The amount of vertices, or -1 if the cell is unbounded because the point is on the hull, or left out.
+	 */
+	public int voronoiCell(int point, double[] xs, double[] ys) {
+		int e0 = inedges[point];
+		if(e0 < 0 || hullIndex[point] >= 0)
+			return -1;
+		int count = 0;
+		int e = e0;
+		do {
+			int t = e / 3;
+			xs[count] = circumcenterX(t);
+			ys[count] = circumcenterY(t);
+			count++;
+			e = halfedges[next(e)];
+		} while(e != e0 && e != -1);
+		return count;
+	}
+
+	private double circumcenter(int t, boolean x) {
+		int a = triangles[3*t], b = triangles[3*t+1], c = triangles[3*t+2];
+		double ax = points.x(a), ay = points.y(a);
+		double dx = points.x(b) - ax, dy = points.y(b) - ay;
+		double ex = points.x(c) - ax, ey = points.y(c) - ay;
+		double bl = dx*dx + dy*dy, cl = ex*ex + ey*ey;
+		double d = 0.5 / (dx*ey - dy*ex);
+		return x ? ax + (ey*bl - dy*cl) * d : ay + (dx*cl - ex*bl) * d;
+	}
+
+	private void triangulate() {
+		int n = points.size();
+		hull = new int[0];
+		if(n < 3)
+			return;
+		hullPrev = new int[n];
+		hullNext = new int[n];
+		hullTri = new int[n];
+		int hashSize = (int) Math.ceil(Math.sqrt(n));
+		hullHash = new int[hashSize];
+
+		int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+		int[] ids = new int[n];
+		for(int i = 0; i < n; i++) {
+			minX = Math.min(minX, points.x(i));
+			minY = Math.min(minY, points.y(i));
+			maxX = Math.max(maxX, points.x(i));
+			maxY = Math.max(maxY, points.y(i));
+			ids[i] = i;
+		}
+		double centerX = (minX + maxX) / 2.0, centerY = (minY + maxY) / 2.0;
+
+		// seed triangle: the point closest to the center, its closest point, and the point making the smallest circle with them
+		int i0 = 0, i1 = -1, i2 = -1;
+		double minDist = Double.MAX_VALUE;
+		for(int i = 0; i < n; i++) {
+			double d = dist2(centerX, centerY, points.x(i), points.y(i));
+			if(d < minDist) {
+				i0 = i;
+				minDist = d;
+			}
+		}
+		minDist = Double.MAX_VALUE;
+		for(int i = 0; i < n; i++) {
+			if(i == i0)
+				continue;
+			double d = points.dist2(i0, points.x(i), points.y(i));
+			if(d < minDist && d > 0) {
+				i1 = i;
+				minDist = d;
+			}
+		}
+		if(i1 < 0)
+			return;
+		double minRadius = Double.MAX_VALUE;
+		for(int i = 0; i < n; i++) {
+			if(i == i0 || i == i1)
+				continue;
+			double r = circumradius2(i0, i1, i);
+			if(r < minRadius) {
+				i2 = i;
+				minRadius = r;
+			}
+		}
+		if(i2 < 0 || minRadius == Double.MAX_VALUE) {
+			collinearHull(ids);
+			return;
+		}
+		if(orient(i0, i1, i2) < 0) {
+			int swap = i1;
+			i1 = i2;
+			i2 = swap;
+		}
+
+		double ax = points.x(i0), ay = points.y(i0);
+		double dx = points.x(i1) - ax, dy = points.y(i1) - ay;
+		double ex = points.x(i2) - ax, ey = points.y(i2) - ay;
+		double bl = dx*dx + dy*dy, cl = ex*ex + ey*ey;
+		double d = 0.5 / (dx*ey - dy*ex);
+		cx = ax + (ey*bl - dy*cl) * d;
+		cy = ay + (dx*cl - ex*bl) * d;
+
+		double[] dists = new double[n];
+		for(int i = 0; i < n; i++)
+			dists[i] = dist2(cx, cy, points.x(i), points.y(i));
+		sort(ids, dists);
+
+		hullStart = i0;
+		int hullSize = 3;
+		hullNext[i0] = hullPrev[i2] = i1;
+		hullNext[i1] = hullPrev[i0] = i2;
+		hullNext[i2] = hullPrev[i1] = i0;
+		hullTri[i0] = 0;
+		hullTri[i1] = 1;
+		hullTri[i2] = 2;
+		Arrays.fill(hullHash, -1);
+		hullHash[hashKey(i0)] = i0;
+		hullHash[hashKey(i1)] = i1;
+		hullHash[hashKey(i2)] = i2;
+		addTriangle(i0, i1, i2, -1, -1, -1);
+
+		int previous = -1;
+		for(int k = 0; k < n; k++) {
+			int i = ids[k];
+			if(previous >= 0 && same(i, previous))
+				continue;
+			previous = i;
+			if(same(i, i0) || same(i, i1) || same(i, i2))
+				continue;
+
+			// find a visible edge of the hull, starting from the hash of the angle of the point
+			int start = 0;
+			for(int j = 0, key = hashKey(i); j < hashSize; j++) {
+				start = hullHash[(key + j) % hashSize];
+				if(start != -1 && start != hullNext[start])
+					break;
+			}
+			start = hullPrev[start];
+			int e = start, q;
+			while(orient(i, e, q = hullNext[e]) >= 0) {
+				e = q;
+				if(e == start) {
+					e = -1;
+					break;
+				}
+			}
+			if(e == -1)
+				continue;
+
+			int t = addTriangle(e, i, hullNext[e], -1, -1, hullTri[e]);
+			hullTri[i] = legalize(t + 2);
+			hullTri[e] = t;
+			hullSize++;
+
+			// walk forward along the hull, adding triangles
+			int nextPoint = hullNext[e];
+			while(orient(i, nextPoint, q = hullNext[nextPoint]) < 0) {
+				t = addTriangle(nextPoint, i, q, hullTri[i], -1, hullTri[nextPoint]);
+				hullTri[i] = legalize(t + 2);
+				hullNext[nextPoint] = nextPoint; // removed from the hull
+				hullSize--;
+				nextPoint = q;
+			}
+			// and backward
+			if(e == start) {
+				while(orient(i, q = hullPrev[e], e) < 0) {
+					t = addTriangle(q, i, e, -1, hullTri[e], hullTri[q]);
+					legalize(t + 2);
+					hullTri[q] = t;
+					hullNext[e] = e;
+					hullSize--;
+					e = q;
+				}
+			}
+
+			hullStart = hullPrev[i] = e;
+			hullNext[e] = hullPrev[nextPoint] = i;
+			hullNext[i] = nextPoint;
+			hullHash[hashKey(i)] = i;
+			hullHash[hashKey(e)] = e;
+		}
+
+		hull = new int[hullSize];
+		for(int k = 0, e = hullStart; k < hullSize; k++) {
+			hull[k] = e;
+			e = hullNext[e];
+		}
+	}
+
+	/**
+	 * All the points are on a line: there are no triangles, and the hull goes along the line and back.
+	 */
+	private void collinearHull(int[] ids) {
+		int x0 = points.x(0), y0 = points.y(0);
+		double[] dists = new double[ids.length];
+		for(int i = 0; i < ids.length; i++)
+			dists[i] = points.x(i) - x0 != 0 ? points.x(i) - x0 : points.y(i) - y0;
+		sort(ids, dists);
+		int[] line = new int[ids.length];
+		int count = 0;
+		for(int k = 0; k < ids.length; k++)
+			if(count == 0 || dists[ids[k]] > dists[line[count-1]])
+				line[count++] = ids[k];
+		hull = Arrays.copyOf(line, count);
+	}
+
+	private int legalize(int a) {
+		int stack = 0;
+		int ar;
+		while(true) {
+			int b = halfedges[a];
+			int a0 = a - a % 3;
+			ar = a0 + (a + 2) % 3;
+			if(b == -1) {
+				if(stack == 0)
+					break;
+				a = edgeStack[--stack];
+				continue;
+			}
+			int b0 = b - b % 3;
+			int al = a0 + (a + 1) % 3;
+			int bl = b0 + (b + 2) % 3;
+			int p0 = triangles[ar], pr = triangles[a], pl = triangles[al], p1 = triangles[bl];
+			if(inCircle(p0, pr, pl, p1)) {
+				triangles[a] = p1;
+				triangles[b] = p0;
+				int hbl = halfedges[bl];
+				// the flipped edge was on the hull: fix the triangle the hull points to
+				if(hbl == -1) {
+					int e = hullStart;
+					do {
+						if(hullTri[e] == bl) {
+							hullTri[e] = a;
+							break;
+						}
+						e = hullPrev[e];
+					} while(e != hullStart);
+				}
+				link(a, hbl);
+				link(b, halfedges[ar]);
+				link(ar, bl);
+				if(stack == edgeStack.length)
+					edgeStack = Arrays.copyOf(edgeStack, stack*2);
+				edgeStack[stack++] = b0 + (b + 1) % 3;
+			} else {
+				if(stack == 0)
+					break;
+				a = edgeStack[--stack];
+			}
+		}
+		return ar;
+	}
+
+	private void link(int a, int b) {
+		halfedges[a] = b;
+		if(b != -1)
+			halfedges[b] = a;
+	}
+
+	private int addTriangle(int i0, int i1, int i2, int a, int b, int c) {
+		int t = triangleCount*3;
+		triangles[t] = i0;
+		triangles[t+1] = i1;
+		triangles[t+2] = i2;
+		link(t, a);
+		link(t + 1, b);
+		link(t + 2, c);
+		triangleCount++;
+		return t;
+	}
+
+	private int hashKey(int i) {
+		double dx = points.x(i) - cx, dy = points.y(i) - cy;
+		// monotonic with the angle, between 0 and 1
+		double p = dx / (Math.abs(dx) + Math.abs(dy));
+		double angle = (dy > 0 ? 3 - p : 1 + p) / 4;
+		return (int) Math.floor(angle * hullHash.length) % hullHash.length;
+	}
+
+	/**
+	 * Sign of the area of triangle (a, b, c): positive when a, b, c go counter-clockwise on screen, with y going down.
+	 */
+	private long orient(int a, int b, int c) {
+		long ax = points.x(a), ay = points.y(a);
+		long bx = points.x(b), by = points.y(b);
+		long cx = points.x(c), cy = points.y(c);
+		return (ay - cy) * (bx - cx) - (ax - cx) * (by - cy);
+	}
+
+	/**
+	 * Tells if p is strictly inside the circle going through a, b and c.
+	 */
+	private boolean inCircle(int a, int b, int c, int p) {
+		long px = points.x(p), py = points.y(p);
+		long dx = points.x(a) - px, dy = points.y(a) - py;
+		long ex = points.x(b) - px, ey = points.y(b) - py;
+		long fx = points.x(c) - px, fy = points.y(c) - py;
+		long ap = dx*dx + dy*dy, bp = ex*ex + ey*ey, cp = fx*fx + fy*fy;
+		return dx * (ey*cp - bp*fy) - dy * (ex*cp - bp*fx) + ap * (ex*fy - ey*fx) < 0;
+	}
+
+	private double circumradius2(int a, int b, int c) {
+		double ax = points.x(a), ay = points.y(a);
+		double dx = points.x(b) - ax, dy = points.y(b) - ay;
+		double ex = points.x(c) - ax, ey = points.y(c) - ay;
+		double bl = dx*dx + dy*dy, cl = ex*ex + ey*ey;
+		double d = 0.5 / (dx*ey - dy*ex);
+		double x = (ey*bl - dy*cl) * d, y = (dx*cl - ex*bl) * d;
+		double r = x*x + y*y;
+		return Double.isNaN(r) || Double.isInfinite(r) ? Double.MAX_VALUE : r;
+	}
+
+	private boolean same(int a, int b) {
+		return points.x(a) == points.x(b) && points.y(a) == points.y(b);
+	}
+
+	private static double dist2(double x1, double y1, double x2, double y2) {
+		return (x1-x2)*(x1-x2) + (y1-y2)*(y1-y2);
+	}
+
+	/**
+	 * Sorts the indices by increasing key, ties by increasing index so the result doesn't depend on the sort.
+	 */
+	private static void sort(int[] ids, double[] keys) {
+		sort(ids, keys, 0, ids.length - 1);
+	}
+
+	private static void sort(int[] ids, double[] keys, int left, int right) {
+		while(right - left > 16) {
+			int pivot = ids[(left + right) >>> 1];
+			int i = left, j = right;
+			while(i <= j) {
+				while(before(ids[i], pivot, keys))
+					i++;
+				while(before(pivot, ids[j], keys))
+					j--;
+				if(i <= j) {
+					int swap = ids[i];
+					ids[i++] = ids[j];
+					ids[j--] = swap;
+				}
+			}
+			// recursion on the smaller side only, to keep the stack small
+			if(j - left < right - i) {
+				sort(ids, keys, left, j);
+				left = i;
+			} else {
+				sort(ids, keys, i, right);
+				right = j;
+			}
+		}
+		for(int i = left + 1; i <= right; i++) {
+			int id = ids[i];
+			int j = i - 1;
+			while(j >= left && before(id, ids[j], keys)) {
+				ids[j + 1] = ids[j];
+				j--;
+			}
+			ids[j + 1] = id;
+		}
+	}
+
+	private static boolean before(int a, int b, double[] keys) {
+		return keys[a] < keys[b] || keys[a] == keys[b] && a < b;
+	}
+}
@@ -0,0 +1,239 @@
+package art.util;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Counts how many grains fall on each pixel, to draw them all at once afterwards instead of one <code>fillOval</code> each.
+ * <br> Every grain has the same shape, the one of <code>fillOval(x, y, grainSize, grainSize)</code>, and is drawn with the
+ * same color, so the color of a pixel only depends on how many grains covered it: {@link #composite(IntRaster)} gives the
+ * same pixels as Java2D drawing the grains one after the other.
+ * <br> Counts are plain sums, so buffers filled by different threads can be added together in any order.
+ */
+public class DensityBuffer {
+
+	public interface Splatter {
+		/**
+		 * Splats the grains from index <code>from</code> included to <code>to</code> excluded into the buffer.
+		 */
+		void splat(DensityBuffer buffer, int from, int to);
+	}
+
+	public final int width, height;
+	private final int grainSize, color;
+	private final int[] counts;
+	/** The pixels covered by a grain, relative to its top left corner. */
+	private final int[] grainXs, grainYs;
+
+	/**
+	 * @param color The non premultiplied ARGB color of the grains. Java2D doesn't draw small translucent ovals the same
+	 * way as opaque ones, so the shape of a grain depends on it too.
+	 */
+	public DensityBuffer(int width, int height, int grainSize, int color) {
+		this.width = width;
+		this.height = height;
+		this.grainSize = grainSize;
+		this.color = color;
+		this.counts = new int[width*height];
+		List<int[]> grain = grainShape(grainSize, color);
+		grainXs = new int[grain.size()];
+		grainYs = new int[grain.size()];
+		for(int i = 0; i < grain.size(); i++) {
+			grainXs[i] = grain.get(i)[0];
+			grainYs[i] = grain.get(i)[1];
+		}
+	}
+
+	/**
+	 * Splats grains with all the threads of the common pool, each filling its own buffer with a part of the grains.
+	 * <br> The buffers are made once and kept from one call of {@link #splat(int, Splatter)} to the next, so a piece
+	 * splatting its grains block after block allocates them once, and adds them to the target once with {@link #finish()}.
+	 * <br> The counts don't depend on the amount of threads, as long as the splatter only depends on the grain index.
+	 * <br> Not thread safe, blocks are splatted one after the other.
+	 */
+	public static class ParallelSplat {
+		private final DensityBuffer target;
+		private final DensityBuffer[] buffers;
+
+		/**
+		 * @param target The buffer the grains are added to by {@link #finish()}.
+		 */
+		public ParallelSplat(DensityBuffer target) {
+			this.target = target;
+			buffers = new DensityBuffer[ForkJoinPool.getCommonPoolParallelism()];
+		}
+
+		/**
+		 * Splats a block of grains in the buffers of the threads, or straight into the target when there are too few of them
+		 * to be worth splitting.
+		 * @param count The amount of grains, given to the splatter in consecutive ranges.
+		 */
+		public void splat(int count, Splatter splatter) {
+			int parts = Math.max(1, Math.min(buffers.length, count/4096));
+			if(parts == 1) {
+				splatter.splat(target, 0, count);
+				return;
+			}
+			for(int part = 0; part < parts; part++)
+				if(buffers[part] == null)
+					buffers[part] = new DensityBuffer(target.width, target.height, target.grainSize, target.color);
+			IntStream.range(0, parts).parallel().forEach(part ->
+				splatter.splat(buffers[part], (int) ((long) count*part/parts), (int) ((long) count*(part + 1)/parts)));
+		}
+
+		/**
+		 * Adds the grains of every thread to the target. The buffers are dropped, this can't be used afterwards.
+		 */
+		public void finish() {
+			for(int part = 0; part < buffers.length; part++) {
+				if(buffers[part] != null)
+					target.add(buffers[part]);
+				buffers[part] = null;
+			}
+		}
+	}
+
+	/**
+	 * Adds a grain whose shape's top left corner is at (x, y). The parts outside of the buffer are dropped.
+	 */
+	public void splat(int x, int y) {
+		if(x >= 1 && y >= 1 && x + grainSize < width && y + grainSize < height) {
+			int offset = y*width + x;
+			for(int i = 0; i < grainXs.length; i++)
+				counts[offset + grainYs[i]*width + grainXs[i]]++;
+			return;
+		}
+		for(int i = 0; i < grainXs.length; i++) {
+			int xp = x + grainXs[i], yp = y + grainYs[i];
+			if(xp >= 0 && yp >= 0 && xp < width && yp < height)
+				counts[yp*width + xp]++;
+		}
+	}
+
+	public int count(int x, int y) {
+		return counts[y*width + x];
+	}
+
+	/**
+	 * @return The highest amount of grains on one pixel.
+	 */
+	public int max() {
+		int max = 0;
+		for(int c : counts)
+			max = Math.max(max, c);
+		return max;
+	}
+
+	/**
+	 * Adds the counts of another buffer of the same size to this one.
+	 * @return This buffer.
+	 */
+	public DensityBuffer add(DensityBuffer other) {
+		if(other.width != width || other.height != height || other.grainSize != grainSize || other.color != color)
+			throw new IllegalArgumentException("Can't add the grains of another size or color, or on another " + other.width + "x" + other.height + " buffer");
+		for(int i = 0; i < counts.length; i++)
+			counts[i] += other.counts[i];
+		return this;
+	}
+
+	/**
+	 * Draws the color of the grains over each pixel of the raster as many times as grains fell on it, like Java2D filling
+	 * every grain would. The raster must be as big as the buffer.
+	 * <br> On opaque pixels, each channel goes through the same Java2D blending step again and again, which ends up stuck on
+	 * one level after at most 256 steps: those levels are computed once for every starting level, so a pixel costs the same
+	 * for one grain or for thousands. Transparent pixels are blended one grain at a time.
+	 */
+	public void composite(IntRaster raster) {
+		if(raster.width != width || raster.height != height)
+			throw new IllegalArgumentException("Can't draw a " + width + "x" + height + " buffer on a " + raster.width + "x" + raster.height + " image");
+		if(color >>> 24 == 0)
+			return;
+		int[][][] levels = levels(color);
+		int[][] reds = levels[0], greens = levels[1], blues = levels[2];
+		int[] pixels = raster.pixels;
+		for(int i = 0; i < counts.length; i++) {
+			int n = counts[i];
+			if(n == 0)
+				continue;
+			int pixel = pixels[i];
+			if(pixel >>> 24 != 255 && raster.hasAlpha) {
+				for(int k = 0; k < n; k++)
+					pixel = IntRaster.blend(pixel, color);
+				pixels[i] = pixel;
+				continue;
+			}
+			int[] red = reds[(pixel >> 16) & 0xFF], green = greens[(pixel >> 8) & 0xFF], blue = blues[pixel & 0xFF];
+			pixels[i] = (pixel & 0xFF000000)
+					| red[Math.min(n, red.length - 1)] << 16
+					| green[Math.min(n, green.length - 1)] << 8
+					| blue[Math.min(n, blue.length - 1)];
+		}
+	}
+
+	/**
+	 * For each channel and each starting level, the levels reached after 0, 1, 2... grains of the color, up to the one
+	 * that doesn't change anymore. The blending step is measured on Java2D, so rounding is the same.
+	 */
+	private static int[][][] levels(int argb) {
+		BufferedImage image = new BufferedImage(256, 1, BufferedImage.TYPE_INT_ARGB);
+		int[] pixels = IntRaster.pixels(image);
+		for(int v = 0; v < 256; v++)
+			pixels[v] = 0xFF000000 | v*0x010101;
+		Graphics2D graphics = image.createGraphics();
+		graphics.setColor(new Color(argb, true));
+		graphics.fillRect(0, 0, 256, 1);
+		graphics.dispose();
+		int[][][] levels = new int[3][256][];
+		for(int c = 0; c < 3; c++) {
+			int shift = 16 - 8*c;
+			int[] step = new int[256];
+			for(int v = 0; v < 256; v++)
+				step[v] = (pixels[v] >> shift) & 0xFF;
+			for(int v = 0; v < 256; v++) {
+				int[] orbit = new int[257];
+				int length = 0;
+				int level = v;
+				orbit[length++] = level;
+				while(step[level] != level && length < orbit.length) {
+					level = step[level];
+					orbit[length++] = level;
+				}
+				levels[c][v] = Arrays.copyOf(orbit, length);
+			}
+		}
+		return levels;
+	}
+
+	/**
+	 * Draws the grain with Java2D, once on black and once on white, and reads back the pixels it changed on either.
+	 */
+	private static List<int[]> grainShape(int size, int color) {
+		List<int[]> grain = new ArrayList<>();
+		if(size <= 0)
+			return grain;
+		// one pixel of margin around the oval, in case it goes over its bounds
+		int side = size + 2;
+		int[][] drawn = new int[2][];
+		for(int i = 0; i < 2; i++) {
+			BufferedImage image = new BufferedImage(side, side, BufferedImage.TYPE_INT_ARGB);
+			Graphics2D graphics = image.createGraphics();
+			graphics.setColor(i == 0 ? Color.BLACK : Color.WHITE);
+			graphics.fillRect(0, 0, side, side);
+			graphics.setColor(new Color(color, true));
+			graphics.fillOval(1, 1, size, size);
+			graphics.dispose();
+			drawn[i] = IntRaster.pixels(image);
+		}
+		for(int y = 0; y < side; y++)
+			for(int x = 0; x < side; x++)
+				if(drawn[0][y*side + x] != 0xFF000000 || drawn[1][y*side + x] != 0xFFFFFFFF)
+					grain.add(new int[] {x - 1, y - 1});
+		return grain;
+	}
+}
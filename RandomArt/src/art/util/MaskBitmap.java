@@ -0,0 +1,131 @@
+package art.util;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.function.IntPredicate;
+
+/**
+ * A black and white mask, one bit per pixel, telling which pixels of a rectangle are eligible.
+ * <br> Besides reading single pixels, the mask can pick a random eligible pixel directly: it keeps the amount of
+ * eligible pixels before each block of 512 bits, so the k-th eligible pixel is found with a binary search and a short scan.
+ * <br> A mask can't be changed once built.
+ */
+public class MaskBitmap {
+
+	private static final int WORDS_PER_BLOCK = 8;
+	/** Amount of rows drawn at once when building from an image, to avoid an ARGB copy of the whole mask. */
+	private static final int STRIP_HEIGHT = 256;
+
+	public final int width, height;
+	private final long[] words;
+	/** blockRank[b] is the amount of eligible pixels in the blocks before block b, with one more entry for the total. */
+	private final int[] blockRank;
+
+	private MaskBitmap(int width, int height, long[] words) {
+		this.width = width;
+		this.height = height;
+		this.words = words;
+		int blocks = (words.length + WORDS_PER_BLOCK - 1) / WORDS_PER_BLOCK;
+		blockRank = new int[blocks + 1];
+		for(int b = 0; b < blocks; b++) {
+			int count = 0;
+			for(int w = b*WORDS_PER_BLOCK; w < Math.min(words.length, (b+1)*WORDS_PER_BLOCK); w++)
+				count += Long.bitCount(words[w]);
+			blockRank[b + 1] = blockRank[b] + count;
+		}
+	}
+
+	/**
+	 * Builds a mask from an image scaled to the given size, the same way <code>Graphics.drawImage</code> would draw it
+	 * over a white background.
+	 * @param eligible Tells if a pixel is eligible, given its ARGB color.
+	 */
+	public static MaskBitmap fromImage(Image source, int width, int height, IntPredicate eligible) {
+		if(width < 1 || height < 1)
+			throw new IllegalArgumentException("Empty mask " + width + "x" + height);
+		long[] words = new long[(int) (((long) width*height + 63) / 64)];
+		BufferedImage strip = new BufferedImage(width, Math.min(STRIP_HEIGHT, height), BufferedImage.TYPE_INT_ARGB);
+		int[] pixels = IntRaster.pixels(strip);
+		Graphics2D graphics = strip.createGraphics();
+		for(int top = 0; top < height; top += STRIP_HEIGHT) {
+			graphics.setColor(Color.WHITE);
+			graphics.fillRect(0, 0, width, STRIP_HEIGHT);
+			graphics.drawImage(source, 0, -top, width, height, null);
+			for(int y = top; y < Math.min(height, top + STRIP_HEIGHT); y++) {
+				int row = (y - top)*width;
+				for(int x = 0; x < width; x++) {
+					if(eligible.test(pixels[row + x])) {
+						long bit = (long) y*width + x;
+						words[(int) (bit >>> 6)] |= 1L << bit;
+					}
+				}
+			}
+		}
+		graphics.dispose();
+		return new MaskBitmap(width, height, words);
+	}
+
+	/**
+	 * Tells if a pixel isn't white-ish, that is if one of its red, green and blue is 240 or less.
+	 */
+	public static boolean notWhite(int argb) {
+		return (argb >> 16 & 0xFF) <= 240 || (argb >> 8 & 0xFF) <= 240 || (argb & 0xFF) <= 240;
+	}
+
+	public boolean get(int x, int y) {
+		if(x < 0 || y < 0 || x >= width || y >= height)
+			return false;
+		long bit = (long) y*width + x;
+		return (words[(int) (bit >>> 6)] & 1L << bit) != 0;
+	}
+
+	/**
+	 * @return The amount of eligible pixels.
+	 */
+	public int count() {
+		return blockRank[blockRank.length - 1];
+	}
+
+	/**
+	 * Finds the eligible pixel that has k eligible pixels before it, going row after row.
+	 * @return The index of the pixel, <code>y*width + x</code>.
+	 */
+	public long select(int k) {
+		if(k < 0 || k >= count())
+			throw new IndexOutOfBoundsException("Eligible pixel " + k + " out of " + count());
+		// last block starting with at most k eligible pixels
+		int low = 0, high = blockRank.length - 2;
+		while(low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if(blockRank[mid] <= k)
+				low = mid;
+			else
+				high = mid - 1;
+		}
+		int remaining = k - blockRank[low];
+		int w = low*WORDS_PER_BLOCK;
+		while(Long.bitCount(words[w]) <= remaining)
+			remaining -= Long.bitCount(words[w++]);
+		long word = words[w];
+		for(; remaining > 0; remaining--)
+			word &= word - 1;
+		return (long) w*64 + Long.numberOfTrailingZeros(word);
+	}
+
+	/**
+	 * Picks an eligible pixel, all of them having the same chances.
+	 * @param position Receives the x and y of the pixel.
+	 * @return false if no pixel is eligible, in which case nothing is drawn from rand.
+	 */
+	public boolean sample(Random rand, int[] position) {
+		if(count() == 0)
+			return false;
+		long pixel = select(rand.nextInt(count()));
+		position[0] = (int) (pixel % width);
+		position[1] = (int) (pixel / width);
+		return true;
+	}
+}
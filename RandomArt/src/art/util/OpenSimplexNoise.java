@@ -2,6 +2,8 @@ package art.util;
 
 import static java.lang.Math.floor;
 
+import java.util.Arrays;
+
 public class OpenSimplexNoise {
 
 	private static final double STRETCH_CONSTANT_2D = -0.211324865405187;    //(1/Math.sqrt(2+1)-1)/2;
@@ -59,6 +61,73 @@ public class OpenSimplexNoise {
 	
 	//2D OpenSimplex Noise.
 	public double eval(double x, double y) {
+		return eval(x, y, null);
+	}
+	
+	/**
+	 * Evaluates the 2D noise on every point of a grid, the same as calling {@link #eval(double, double)} on each of them.
+	 * <br> The grid is given by its columns and rows: <code>out[offset + j*xs.length + i] = eval(xs[i], ys[j])</code>.
+	 * Going through the grid row by row, neighbouring points fall in the same lattice cell, so the gradients of that
+	 * cell are only looked up once for all of them.
+	 * @param xs The x coordinate of every column.
+	 * @param ys The y coordinate of every row.
+	 * @param out Where the values are written, needs at least xs.length*ys.length values after offset.
+	 * @param offset The index of the first value in out.
+	 */
+	public void eval(double[] xs, double[] ys, double[] out, int offset) {
+		eval(xs, 0, xs.length, ys, 0, ys.length, out, offset);
+	}
+	
+	/**
+	 * Same as {@link #eval(double[], double[], double[], int)} on a part of the grid, without copying it: the columns
+	 * from xFrom to xFrom+width and the rows from yFrom to yFrom+height, both excluded,
+	 * <code>out[offset + j*width + i] = eval(xs[xFrom + i], ys[yFrom + j])</code>.
+	 */
+	public void eval(double[] xs, int xFrom, int width, double[] ys, int yFrom, int height, double[] out, int offset) {
+		Lattice2D lattice = new Lattice2D();
+		for (int j = yFrom; j < yFrom + height; j++) {
+			double y = ys[j];
+			for (int i = xFrom; i < xFrom + width; i++)
+				out[offset++] = eval(xs[i], y, lattice);
+		}
+	}
+	
+	/**
+	 * Same as {@link #eval(double[], double[], double[], int)}, with each value cast to a float.
+	 */
+	public void eval(double[] xs, double[] ys, float[] out, int offset) {
+		Lattice2D lattice = new Lattice2D();
+		for (int j = 0; j < ys.length; j++) {
+			double y = ys[j];
+			for (int i = 0; i < xs.length; i++)
+				out[offset++] = (float) eval(xs[i], y, lattice);
+		}
+	}
+	
+	/**
+	 * Evaluates the 2D noise on a regular grid of width*height points, starting at (x0, y0) and spaced by step,
+	 * row by row: <code>out[j*width + i] = eval(x0 + i*step, y0 + j*step)</code>.
+	 */
+	public void eval(double x0, double y0, double step, int width, int height, double[] out) {
+		eval(steps(x0, step, width), steps(y0, step, height), out, 0);
+	}
+	
+	/**
+	 * Same as {@link #eval(double, double, double, int, int, double[])}, with each value cast to a float.
+	 */
+	public void eval(double x0, double y0, double step, int width, int height, float[] out) {
+		eval(steps(x0, step, width), steps(y0, step, height), out, 0);
+	}
+	
+	private static double[] steps(double start, double step, int amount) {
+		double[] values = new double[amount];
+		for (int i = 0; i < amount; i++)
+			values[i] = start + i * step;
+		return values;
+	}
+	
+	//2D OpenSimplex Noise, reusing the gradients of the last rhombus looked up if given a lattice.
+	private double eval(double x, double y, Lattice2D lattice) {
 	
 		//Place input coordinates onto grid.
 		double stretchOffset = (x + y) * STRETCH_CONSTANT_2D;
@@ -66,8 +135,10 @@ public class OpenSimplexNoise {
 		double ys = y + stretchOffset;
 		
 		//Floor to get grid coordinates of rhombus (stretched square) super-cell origin.
-		int xsb = (int) floor(xs);
-		int ysb = (int) floor(ys);
+		int xsb = fastFloor(xs);
+		int ysb = fastFloor(ys);
+		if (lattice != null && (xsb != lattice.xsb || ysb != lattice.ysb))
+			lattice.moveTo(xsb, ysb);
 		
 		//Skew out to get actual coordinates of rhombus origin. We'll need these later.
 		double squishOffset = (xsb + ysb) * SQUISH_CONSTANT_2D;
@@ -97,7 +168,7 @@ public class OpenSimplexNoise {
 		double attn1 = 2 - dx1 * dx1 - dy1 * dy1;
 		if (attn1 > 0) {
 			attn1 *= attn1;
-			value += attn1 * attn1 * extrapolate(xsb + 1, ysb + 0, dx1, dy1);
+			value += attn1 * attn1 * extrapolate(lattice, xsb + 1, ysb + 0, dx1, dy1);
 		}
 
 		//Contribution (0,1)
@@ -106,7 +177,7 @@ public class OpenSimplexNoise {
 		double attn2 = 2 - dx2 * dx2 - dy2 * dy2;
 		if (attn2 > 0) {
 			attn2 *= attn2;
-			value += attn2 * attn2 * extrapolate(xsb + 0, ysb + 1, dx2, dy2);
+			value += attn2 * attn2 * extrapolate(lattice, xsb + 0, ysb + 1, dx2, dy2);
 		}
 		
 		if (inSum <= 1) { //We're inside the triangle (2-Simplex) at (0,0)
@@ -159,14 +230,14 @@ public class OpenSimplexNoise {
 		double attn0 = 2 - dx0 * dx0 - dy0 * dy0;
 		if (attn0 > 0) {
 			attn0 *= attn0;
-			value += attn0 * attn0 * extrapolate(xsb, ysb, dx0, dy0);
+			value += attn0 * attn0 * extrapolate(lattice, xsb, ysb, dx0, dy0);
 		}
 		
 		//Extra Vertex
 		double attn_ext = 2 - dx_ext * dx_ext - dy_ext * dy_ext;
 		if (attn_ext > 0) {
 			attn_ext *= attn_ext;
-			value += attn_ext * attn_ext * extrapolate(xsv_ext, ysv_ext, dx_ext, dy_ext);
+			value += attn_ext * attn_ext * extrapolate(lattice, xsv_ext, ysv_ext, dx_ext, dy_ext);
 		}
 		
 		return value / NORM_CONSTANT_2D;
@@ -923,56 +994,7 @@ public class OpenSimplexNoise {
 				}
 			}
 
-			//Contribution (0,0,0,0)
-			double attn0 = 2 - dx0 * dx0 - dy0 * dy0 - dz0 * dz0 - dw0 * dw0;
-			if (attn0 > 0) {
-				attn0 *= attn0;
-				value += attn0 * attn0 * extrapolate(xsb + 0, ysb + 0, zsb + 0, wsb + 0, dx0, dy0, dz0, dw0);
-			}
-
-			//Contribution (1,0,0,0)
-			double dx1 = dx0 - 1 - SQUISH_CONSTANT_4D;
-			double dy1 = dy0 - 0 - SQUISH_CONSTANT_4D;
-			double dz1 = dz0 - 0 - SQUISH_CONSTANT_4D;
-			double dw1 = dw0 - 0 - SQUISH_CONSTANT_4D;
-			double attn1 = 2 - dx1 * dx1 - dy1 * dy1 - dz1 * dz1 - dw1 * dw1;
-			if (attn1 > 0) {
-				attn1 *= attn1;
-				value += attn1 * attn1 * extrapolate(xsb + 1, ysb + 0, zsb + 0, wsb + 0, dx1, dy1, dz1, dw1);
-			}
-
-			//Contribution (0,1,0,0)
-			double dx2 = dx0 - 0 - SQUISH_CONSTANT_4D;
-			double dy2 = dy0 - 1 - SQUISH_CONSTANT_4D;
-			double dz2 = dz1;
-			double dw2 = dw1;
-			double attn2 = 2 - dx2 * dx2 - dy2 * dy2 - dz2 * dz2 - dw2 * dw2;
-			if (attn2 > 0) {
-				attn2 *= attn2;
-				value += attn2 * attn2 * extrapolate(xsb + 0, ysb + 1, zsb + 0, wsb + 0, dx2, dy2, dz2, dw2);
-			}
-
-			//Contribution (0,0,1,0)
-			double dx3 = dx2;
-			double dy3 = dy1;
-			double dz3 = dz0 - 1 - SQUISH_CONSTANT_4D;
-			double dw3 = dw1;
-			double attn3 = 2 - dx3 * dx3 - dy3 * dy3 - dz3 * dz3 - dw3 * dw3;
-			if (attn3 > 0) {
-				attn3 *= attn3;
-				value += attn3 * attn3 * extrapolate(xsb + 0, ysb + 0, zsb + 1, wsb + 0, dx3, dy3, dz3, dw3);
-			}
-
-			//Contribution (0,0,0,1)
-			double dx4 = dx2;
-			double dy4 = dy1;
-			double dz4 = dz1;
-			double dw4 = dw0 - 1 - SQUISH_CONSTANT_4D;
-			double attn4 = 2 - dx4 * dx4 - dy4 * dy4 - dz4 * dz4 - dw4 * dw4;
-			if (attn4 > 0) {
-				attn4 *= attn4;
-				value += attn4 * attn4 * extrapolate(xsb + 0, ysb + 0, zsb + 0, wsb + 1, dx4, dy4, dz4, dw4);
-			}
+			value = contributions0000(xsb, ysb, zsb, wsb, dx0, dy0, dz0, dw0);
 		} else if (inSum >= 3) { //We're inside the pentachoron (4-Simplex) at (1,1,1,1)
 			//Determine which two of (1,1,1,0), (1,1,0,1), (1,0,1,1), (0,1,1,1) are closest.
 			byte aPoint = 0x0E;
@@ -1116,60 +1138,7 @@ public class OpenSimplexNoise {
 				}
 			}
 
-			//Contribution (1,1,1,0)
-			double dx4 = dx0 - 1 - 3 * SQUISH_CONSTANT_4D;
-			double dy4 = dy0 - 1 - 3 * SQUISH_CONSTANT_4D;
-			double dz4 = dz0 - 1 - 3 * SQUISH_CONSTANT_4D;
-			double dw4 = dw0 - 3 * SQUISH_CONSTANT_4D;
-			double attn4 = 2 - dx4 * dx4 - dy4 * dy4 - dz4 * dz4 - dw4 * dw4;
-			if (attn4 > 0) {
-				attn4 *= attn4;
-				value += attn4 * attn4 * extrapolate(xsb + 1, ysb + 1, zsb + 1, wsb + 0, dx4, dy4, dz4, dw4);
-			}
-
-			//Contribution (1,1,0,1)
-			double dx3 = dx4;
-			double dy3 = dy4;
-			double dz3 = dz0 - 3 * SQUISH_CONSTANT_4D;
-			double dw3 = dw0 - 1 - 3 * SQUISH_CONSTANT_4D;
-			double attn3 = 2 - dx3 * dx3 - dy3 * dy3 - dz3 * dz3 - dw3 * dw3;
-			if (attn3 > 0) {
-				attn3 *= attn3;
-				value += attn3 * attn3 * extrapolate(xsb + 1, ysb + 1, zsb + 0, wsb + 1, dx3, dy3, dz3, dw3);
-			}
-
-			//Contribution (1,0,1,1)
-			double dx2 = dx4;
-			double dy2 = dy0 - 3 * SQUISH_CONSTANT_4D;
-			double dz2 = dz4;
-			double dw2 = dw3;
-			double attn2 = 2 - dx2 * dx2 - dy2 * dy2 - dz2 * dz2 - dw2 * dw2;
-			if (attn2 > 0) {
-				attn2 *= attn2;
-				value += attn2 * attn2 * extrapolate(xsb + 1, ysb + 0, zsb + 1, wsb + 1, dx2, dy2, dz2, dw2);
-			}
-
-			//Contribution (0,1,1,1)
-			double dx1 = dx0 - 3 * SQUISH_CONSTANT_4D;
-			double dz1 = dz4;
-			double dy1 = dy4;
-			double dw1 = dw3;
-			double attn1 = 2 - dx1 * dx1 - dy1 * dy1 - dz1 * dz1 - dw1 * dw1;
-			if (attn1 > 0) {
-				attn1 *= attn1;
-				value += attn1 * attn1 * extrapolate(xsb + 0, ysb + 1, zsb + 1, wsb + 1, dx1, dy1, dz1, dw1);
-			}
-
-			//Contribution (1,1,1,1)
-			dx0 = dx0 - 1 - 4 * SQUISH_CONSTANT_4D;
-			dy0 = dy0 - 1 - 4 * SQUISH_CONSTANT_4D;
-			dz0 = dz0 - 1 - 4 * SQUISH_CONSTANT_4D;
-			dw0 = dw0 - 1 - 4 * SQUISH_CONSTANT_4D;
-			double attn0 = 2 - dx0 * dx0 - dy0 * dy0 - dz0 * dz0 - dw0 * dw0;
-			if (attn0 > 0) {
-				attn0 *= attn0;
-				value += attn0 * attn0 * extrapolate(xsb + 1, ysb + 1, zsb + 1, wsb + 1, dx0, dy0, dz0, dw0);
-			}
+			value = contributions1111(xsb, ysb, zsb, wsb, dx0, dy0, dz0, dw0);
 		} else if (inSum <= 2) { //We're inside the first dispentachoron (Rectified 4-Simplex)
 			double aScore;
 			byte aPoint;
@@ -1490,115 +1459,7 @@ public class OpenSimplexNoise {
 				}
 			}
 			
-			//Contribution (1,0,0,0)
-			double dx1 = dx0 - 1 - SQUISH_CONSTANT_4D;
-			double dy1 = dy0 - 0 - SQUISH_CONSTANT_4D;
-			double dz1 = dz0 - 0 - SQUISH_CONSTANT_4D;
-			double dw1 = dw0 - 0 - SQUISH_CONSTANT_4D;
-			double attn1 = 2 - dx1 * dx1 - dy1 * dy1 - dz1 * dz1 - dw1 * dw1;
-			if (attn1 > 0) {
-				attn1 *= attn1;
-				value += attn1 * attn1 * extrapolate(xsb + 1, ysb + 0, zsb + 0, wsb + 0, dx1, dy1, dz1, dw1);
-			}
-
-			//Contribution (0,1,0,0)
-			double dx2 = dx0 - 0 - SQUISH_CONSTANT_4D;
-			double dy2 = dy0 - 1 - SQUISH_CONSTANT_4D;
-			double dz2 = dz1;
-			double dw2 = dw1;
-			double attn2 = 2 - dx2 * dx2 - dy2 * dy2 - dz2 * dz2 - dw2 * dw2;
-			if (attn2 > 0) {
-				attn2 *= attn2;
-				value += attn2 * attn2 * extrapolate(xsb + 0, ysb + 1, zsb + 0, wsb + 0, dx2, dy2, dz2, dw2);
-			}
-
-			//Contribution (0,0,1,0)
-			double dx3 = dx2;
-			double dy3 = dy1;
-			double dz3 = dz0 - 1 - SQUISH_CONSTANT_4D;
-			double dw3 = dw1;
-			double attn3 = 2 - dx3 * dx3 - dy3 * dy3 - dz3 * dz3 - dw3 * dw3;
-			if (attn3 > 0) {
-				attn3 *= attn3;
-				value += attn3 * attn3 * extrapolate(xsb + 0, ysb + 0, zsb + 1, wsb + 0, dx3, dy3, dz3, dw3);
-			}
-
-			//Contribution (0,0,0,1)
-			double dx4 = dx2;
-			double dy4 = dy1;
-			double dz4 = dz1;
-			double dw4 = dw0 - 1 - SQUISH_CONSTANT_4D;
-			double attn4 = 2 - dx4 * dx4 - dy4 * dy4 - dz4 * dz4 - dw4 * dw4;
-			if (attn4 > 0) {
-				attn4 *= attn4;
-				value += attn4 * attn4 * extrapolate(xsb + 0, ysb + 0, zsb + 0, wsb + 1, dx4, dy4, dz4, dw4);
-			}
-			
-			//Contribution (1,1,0,0)
-			double dx5 = dx0 - 1 - 2 * SQUISH_CONSTANT_4D;
-			double dy5 = dy0 - 1 - 2 * SQUISH_CONSTANT_4D;
-			double dz5 = dz0 - 0 - 2 * SQUISH_CONSTANT_4D;
-			double dw5 = dw0 - 0 - 2 * SQUISH_CONSTANT_4D;
-			double attn5 = 2 - dx5 * dx5 - dy5 * dy5 - dz5 * dz5 - dw5 * dw5;
-			if (attn5 > 0) {
-				attn5 *= attn5;
-				value += attn5 * attn5 * extrapolate(xsb + 1, ysb + 1, zsb + 0, wsb + 0, dx5, dy5, dz5, dw5);
-			}
-			
-			//Contribution (1,0,1,0)
-			double dx6 = dx0 - 1 - 2 * SQUISH_CONSTANT_4D;
-			double dy6 = dy0 - 0 - 2 * SQUISH_CONSTANT_4D;
-			double dz6 = dz0 - 1 - 2 * SQUISH_CONSTANT_4D;
-			double dw6 = dw0 - 0 - 2 * SQUISH_CONSTANT_4D;
-			double attn6 = 2 - dx6 * dx6 - dy6 * dy6 - dz6 * dz6 - dw6 * dw6;
-			if (attn6 > 0) {
-				attn6 *= attn6;
-				value += attn6 * attn6 * extrapolate(xsb + 1, ysb + 0, zsb + 1, wsb + 0, dx6, dy6, dz6, dw6);
-			}
-
-			//Contribution (1,0,0,1)
-			double dx7 = dx0 - 1 - 2 * SQUISH_CONSTANT_4D;
-			double dy7 = dy0 - 0 - 2 * SQUISH_CONSTANT_4D;
-			double dz7 = dz0 - 0 - 2 * SQUISH_CONSTANT_4D;
-			double dw7 = dw0 - 1 - 2 * SQUISH_CONSTANT_4D;
-			double attn7 = 2 - dx7 * dx7 - dy7 * dy7 - dz7 * dz7 - dw7 * dw7;
-			if (attn7 > 0) {
-				attn7 *= attn7;
-				value += attn7 * attn7 * extrapolate(xsb + 1, ysb + 0, zsb + 0, wsb + 1, dx7, dy7, dz7, dw7);
-			}
-			
-			//Contribution (0,1,1,0)
-			double dx8 = dx0 - 0 - 2 * SQUISH_CONSTANT_4D;
-			double dy8 = dy0 - 1 - 2 * SQUISH_CONSTANT_4D;
-			double dz8 = dz0 - 1 - 2 * SQUISH_CONSTANT_4D;
-			double dw8 = dw0 - 0 - 2 * SQUISH_CONSTANT_4D;
-			double attn8 = 2 - dx8 * dx8 - dy8 * dy8 - dz8 * dz8 - dw8 * dw8;
-			if (attn8 > 0) {
-				attn8 *= attn8;
-				value += attn8 * attn8 * extrapolate(xsb + 0, ysb + 1, zsb + 1, wsb + 0, dx8, dy8, dz8, dw8);
-			}
-			
-			//Contribution (0,1,0,1)
-			double dx9 = dx0 - 0 - 2 * SQUISH_CONSTANT_4D;
-			double dy9 = dy0 - 1 - 2 * SQUISH_CONSTANT_4D;
-			double dz9 = dz0 - 0 - 2 * SQUISH_CONSTANT_4D;
-			double dw9 = dw0 - 1 - 2 * SQUISH_CONSTANT_4D;
-			double attn9 = 2 - dx9 * dx9 - dy9 * dy9 - dz9 * dz9 - dw9 * dw9;
-			if (attn9 > 0) {
-				attn9 *= attn9;
-				value += attn9 * attn9 * extrapolate(xsb + 0, ysb + 1, zsb + 0, wsb + 1, dx9, dy9, dz9, dw9);
-			}
-			
-			//Contribution (0,0,1,1)
-			double dx10 = dx0 - 0 - 2 * SQUISH_CONSTANT_4D;
-			double dy10 = dy0 - 0 - 2 * SQUISH_CONSTANT_4D;
-			double dz10 = dz0 - 1 - 2 * SQUISH_CONSTANT_4D;
-			double dw10 = dw0 - 1 - 2 * SQUISH_CONSTANT_4D;
-			double attn10 = 2 - dx10 * dx10 - dy10 * dy10 - dz10 * dz10 - dw10 * dw10;
-			if (attn10 > 0) {
-				attn10 *= attn10;
-				value += attn10 * attn10 * extrapolate(xsb + 0, ysb + 0, zsb + 1, wsb + 1, dx10, dy10, dz10, dw10);
-			}
+			value = contributionsFirstDispentachoron(xsb, ysb, zsb, wsb, dx0, dy0, dz0, dw0);
 		} else { //We're inside the second dispentachoron (Rectified 4-Simplex)
 			double aScore;
 			byte aPoint;
@@ -1909,115 +1770,7 @@ public class OpenSimplexNoise {
 				}
 			}
 			
-			//Contribution (1,1,1,0)
-			double dx4 = dx0 - 1 - 3 * SQUISH_CONSTANT_4D;
-			double dy4 = dy0 - 1 - 3 * SQUISH_CONSTANT_4D;
-			double dz4 = dz0 - 1 - 3 * SQUISH_CONSTANT_4D;
-			double dw4 = dw0 - 3 * SQUISH_CONSTANT_4D;
-			double attn4 = 2 - dx4 * dx4 - dy4 * dy4 - dz4 * dz4 - dw4 * dw4;
-			if (attn4 > 0) {
-				attn4 *= attn4;
-				value += attn4 * attn4 * extrapolate(xsb + 1, ysb + 1, zsb + 1, wsb + 0, dx4, dy4, dz4, dw4);
-			}
-
-			//Contribution (1,1,0,1)
-			double dx3 = dx4;
-			double dy3 = dy4;
-			double dz3 = dz0 - 3 * SQUISH_CONSTANT_4D;
-			double dw3 = dw0 - 1 - 3 * SQUISH_CONSTANT_4D;
-			double attn3 = 2 - dx3 * dx3 - dy3 * dy3 - dz3 * dz3 - dw3 * dw3;
-			if (attn3 > 0) {
-				attn3 *= attn3;
-				value += attn3 * attn3 * extrapolate(xsb + 1, ysb + 1, zsb + 0, wsb + 1, dx3, dy3, dz3, dw3);
-			}
-
-			//Contribution (1,0,1,1)
-			double dx2 = dx4;
-			double dy2 = dy0 - 3 * SQUISH_CONSTANT_4D;
-			double dz2 = dz4;
-			double dw2 = dw3;
-			double attn2 = 2 - dx2 * dx2 - dy2 * dy2 - dz2 * dz2 - dw2 * dw2;
-			if (attn2 > 0) {
-				attn2 *= attn2;
-				value += attn2 * attn2 * extrapolate(xsb + 1, ysb + 0, zsb + 1, wsb + 1, dx2, dy2, dz2, dw2);
-			}
-
-			//Contribution (0,1,1,1)
-			double dx1 = dx0 - 3 * SQUISH_CONSTANT_4D;
-			double dz1 = dz4;
-			double dy1 = dy4;
-			double dw1 = dw3;
-			double attn1 = 2 - dx1 * dx1 - dy1 * dy1 - dz1 * dz1 - dw1 * dw1;
-			if (attn1 > 0) {
-				attn1 *= attn1;
-				value += attn1 * attn1 * extrapolate(xsb + 0, ysb + 1, zsb + 1, wsb + 1, dx1, dy1, dz1, dw1);
-			}
-			
-			//Contribution (1,1,0,0)
-			double dx5 = dx0 - 1 - 2 * SQUISH_CONSTANT_4D;
-			double dy5 = dy0 - 1 - 2 * SQUISH_CONSTANT_4D;
-			double dz5 = dz0 - 0 - 2 * SQUISH_CONSTANT_4D;
-			double dw5 = dw0 - 0 - 2 * SQUISH_CONSTANT_4D;
-			double attn5 = 2 - dx5 * dx5 - dy5 * dy5 - dz5 * dz5 - dw5 * dw5;
-			if (attn5 > 0) {
-				attn5 *= attn5;
-				value += attn5 * attn5 * extrapolate(xsb + 1, ysb + 1, zsb + 0, wsb + 0, dx5, dy5, dz5, dw5);
-			}
-			
-			//Contribution (1,0,1,0)
-			double dx6 = dx0 - 1 - 2 * SQUISH_CONSTANT_4D;
-			double dy6 = dy0 - 0 - 2 * SQUISH_CONSTANT_4D;
-			double dz6 = dz0 - 1 - 2 * SQUISH_CONSTANT_4D;
-			double dw6 = dw0 - 0 - 2 * SQUISH_CONSTANT_4D;
-			double attn6 = 2 - dx6 * dx6 - dy6 * dy6 - dz6 * dz6 - dw6 * dw6;
-			if (attn6 > 0) {
-				attn6 *= attn6;
-				value += attn6 * attn6 * extrapolate(xsb + 1, ysb + 0, zsb + 1, wsb + 0, dx6, dy6, dz6, dw6);
-			}
-
-			//Contribution (1,0,0,1)
-			double dx7 = dx0 - 1 - 2 * SQUISH_CONSTANT_4D;
-			double dy7 = dy0 - 0 - 2 * SQUISH_CONSTANT_4D;
-			double dz7 = dz0 - 0 - 2 * SQUISH_CONSTANT_4D;
-			double dw7 = dw0 - 1 - 2 * SQUISH_CONSTANT_4D;
-			double attn7 = 2 - dx7 * dx7 - dy7 * dy7 - dz7 * dz7 - dw7 * dw7;
-			if (attn7 > 0) {
-				attn7 *= attn7;
-				value += attn7 * attn7 * extrapolate(xsb + 1, ysb + 0, zsb + 0, wsb + 1, dx7, dy7, dz7, dw7);
-			}
-			
-			//Contribution (0,1,1,0)
-			double dx8 = dx0 - 0 - 2 * SQUISH_CONSTANT_4D;
-			double dy8 = dy0 - 1 - 2 * SQUISH_CONSTANT_4D;
-			double dz8 = dz0 - 1 - 2 * SQUISH_CONSTANT_4D;
-			double dw8 = dw0 - 0 - 2 * SQUISH_CONSTANT_4D;
-			double attn8 = 2 - dx8 * dx8 - dy8 * dy8 - dz8 * dz8 - dw8 * dw8;
-			if (attn8 > 0) {
-				attn8 *= attn8;
-				value += attn8 * attn8 * extrapolate(xsb + 0, ysb + 1, zsb + 1, wsb + 0, dx8, dy8, dz8, dw8);
-			}
-			
-			//Contribution (0,1,0,1)
-			double dx9 = dx0 - 0 - 2 * SQUISH_CONSTANT_4D;
-			double dy9 = dy0 - 1 - 2 * SQUISH_CONSTANT_4D;
-			double dz9 = dz0 - 0 - 2 * SQUISH_CONSTANT_4D;
-			double dw9 = dw0 - 1 - 2 * SQUISH_CONSTANT_4D;
-			double attn9 = 2 - dx9 * dx9 - dy9 * dy9 - dz9 * dz9 - dw9 * dw9;
-			if (attn9 > 0) {
-				attn9 *= attn9;
-				value += attn9 * attn9 * extrapolate(xsb + 0, ysb + 1, zsb + 0, wsb + 1, dx9, dy9, dz9, dw9);
-			}
-			
-			//Contribution (0,0,1,1)
-			double dx10 = dx0 - 0 - 2 * SQUISH_CONSTANT_4D;
-			double dy10 = dy0 - 0 - 2 * SQUISH_CONSTANT_4D;
-			double dz10 = dz0 - 1 - 2 * SQUISH_CONSTANT_4D;
-			double dw10 = dw0 - 1 - 2 * SQUISH_CONSTANT_4D;
-			double attn10 = 2 - dx10 * dx10 - dy10 * dy10 - dz10 * dz10 - dw10 * dw10;
-			if (attn10 > 0) {
-				attn10 *= attn10;
-				value += attn10 * attn10 * extrapolate(xsb + 0, ysb + 0, zsb + 1, wsb + 1, dx10, dy10, dz10, dw10);
-			}
+			value = contributionsSecondDispentachoron(xsb, ysb, zsb, wsb, dx0, dy0, dz0, dw0);
 		}
  
 		//First extra vertex
@@ -2047,6 +1800,387 @@ public class OpenSimplexNoise {
 		return value / NORM_CONSTANT_4D;
 	}
 	
+	//Contributions of the vertices of the pentachoron (4-Simplex) at (0,0,0,0), split from eval to keep it small enough for the JIT.
+	private double contributions0000(int xsb, int ysb, int zsb, int wsb, double dx0, double dy0, double dz0, double dw0) {
+		double value = 0;
+
+		//Contribution (0,0,0,0)
+		double attn0 = 2 - dx0 * dx0 - dy0 * dy0 - dz0 * dz0 - dw0 * dw0;
+		if (attn0 > 0) {
+			attn0 *= attn0;
+			value += attn0 * attn0 * extrapolate(xsb + 0, ysb + 0, zsb + 0, wsb + 0, dx0, dy0, dz0, dw0);
+		}
+
+		//Contribution (1,0,0,0)
+		double dx1 = dx0 - 1 - SQUISH_CONSTANT_4D;
+		double dy1 = dy0 - 0 - SQUISH_CONSTANT_4D;
+		double dz1 = dz0 - 0 - SQUISH_CONSTANT_4D;
+		double dw1 = dw0 - 0 - SQUISH_CONSTANT_4D;
+		double attn1 = 2 - dx1 * dx1 - dy1 * dy1 - dz1 * dz1 - dw1 * dw1;
+		if (attn1 > 0) {
+			attn1 *= attn1;
+			value += attn1 * attn1 * extrapolate(xsb + 1, ysb + 0, zsb + 0, wsb + 0, dx1, dy1, dz1, dw1);
+		}
+
+		//Contribution (0,1,0,0)
+		double dx2 = dx0 - 0 - SQUISH_CONSTANT_4D;
+		double dy2 = dy0 - 1 - SQUISH_CONSTANT_4D;
+		double dz2 = dz1;
+		double dw2 = dw1;
+		double attn2 = 2 - dx2 * dx2 - dy2 * dy2 - dz2 * dz2 - dw2 * dw2;
+		if (attn2 > 0) {
+			attn2 *= attn2;
+			value += attn2 * attn2 * extrapolate(xsb + 0, ysb + 1, zsb + 0, wsb + 0, dx2, dy2, dz2, dw2);
+		}
+
+		//Contribution (0,0,1,0)
+		double dx3 = dx2;
+		double dy3 = dy1;
+		double dz3 = dz0 - 1 - SQUISH_CONSTANT_4D;
+		double dw3 = dw1;
+		double attn3 = 2 - dx3 * dx3 - dy3 * dy3 - dz3 * dz3 - dw3 * dw3;
+		if (attn3 > 0) {
+			attn3 *= attn3;
+			value += attn3 * attn3 * extrapolate(xsb + 0, ysb + 0, zsb + 1, wsb + 0, dx3, dy3, dz3, dw3);
+		}
+
+		//Contribution (0,0,0,1)
+		double dx4 = dx2;
+		double dy4 = dy1;
+		double dz4 = dz1;
+		double dw4 = dw0 - 1 - SQUISH_CONSTANT_4D;
+		double attn4 = 2 - dx4 * dx4 - dy4 * dy4 - dz4 * dz4 - dw4 * dw4;
+		if (attn4 > 0) {
+			attn4 *= attn4;
+			value += attn4 * attn4 * extrapolate(xsb + 0, ysb + 0, zsb + 0, wsb + 1, dx4, dy4, dz4, dw4);
+		}
+		return value;
+	}
+	
+	//Contributions of the vertices of the pentachoron (4-Simplex) at (1,1,1,1), split from eval to keep it small enough for the JIT.
+	private double contributions1111(int xsb, int ysb, int zsb, int wsb, double dx0, double dy0, double dz0, double dw0) {
+		double value = 0;
+
+		//Contribution (1,1,1,0)
+		double dx4 = dx0 - 1 - 3 * SQUISH_CONSTANT_4D;
+		double dy4 = dy0 - 1 - 3 * SQUISH_CONSTANT_4D;
+		double dz4 = dz0 - 1 - 3 * SQUISH_CONSTANT_4D;
+		double dw4 = dw0 - 3 * SQUISH_CONSTANT_4D;
+		double attn4 = 2 - dx4 * dx4 - dy4 * dy4 - dz4 * dz4 - dw4 * dw4;
+		if (attn4 > 0) {
+			attn4 *= attn4;
+			value += attn4 * attn4 * extrapolate(xsb + 1, ysb + 1, zsb + 1, wsb + 0, dx4, dy4, dz4, dw4);
+		}
+
+		//Contribution (1,1,0,1)
+		double dx3 = dx4;
+		double dy3 = dy4;
+		double dz3 = dz0 - 3 * SQUISH_CONSTANT_4D;
+		double dw3 = dw0 - 1 - 3 * SQUISH_CONSTANT_4D;
+		double attn3 = 2 - dx3 * dx3 - dy3 * dy3 - dz3 * dz3 - dw3 * dw3;
+		if (attn3 > 0) {
+			attn3 *= attn3;
+			value += attn3 * attn3 * extrapolate(xsb + 1, ysb + 1, zsb + 0, wsb + 1, dx3, dy3, dz3, dw3);
+		}
+
+		//Contribution (1,0,1,1)
+		double dx2 = dx4;
+		double dy2 = dy0 - 3 * SQUISH_CONSTANT_4D;
+		double dz2 = dz4;
+		double dw2 = dw3;
+		double attn2 = 2 - dx2 * dx2 - dy2 * dy2 - dz2 * dz2 - dw2 * dw2;
+		if (attn2 > 0) {
+			attn2 *= attn2;
+			value += attn2 * attn2 * extrapolate(xsb + 1, ysb + 0, zsb + 1, wsb + 1, dx2, dy2, dz2, dw2);
+		}
+
+		//Contribution (0,1,1,1)
+		double dx1 = dx0 - 3 * SQUISH_CONSTANT_4D;
+		double dz1 = dz4;
+		double dy1 = dy4;
+		double dw1 = dw3;
+		double attn1 = 2 - dx1 * dx1 - dy1 * dy1 - dz1 * dz1 - dw1 * dw1;
+		if (attn1 > 0) {
+			attn1 *= attn1;
+			value += attn1 * attn1 * extrapolate(xsb + 0, ysb + 1, zsb + 1, wsb + 1, dx1, dy1, dz1, dw1);
+		}
+
+		//Contribution (1,1,1,1)
+		dx0 = dx0 - 1 - 4 * SQUISH_CONSTANT_4D;
+		dy0 = dy0 - 1 - 4 * SQUISH_CONSTANT_4D;
+		dz0 = dz0 - 1 - 4 * SQUISH_CONSTANT_4D;
+		dw0 = dw0 - 1 - 4 * SQUISH_CONSTANT_4D;
+		double attn0 = 2 - dx0 * dx0 - dy0 * dy0 - dz0 * dz0 - dw0 * dw0;
+		if (attn0 > 0) {
+			attn0 *= attn0;
+			value += attn0 * attn0 * extrapolate(xsb + 1, ysb + 1, zsb + 1, wsb + 1, dx0, dy0, dz0, dw0);
+		}
+		return value;
+	}
+	
+	//Contributions of the vertices of the first dispentachoron (Rectified 4-Simplex), split from eval to keep it small enough for the JIT.
+	private double contributionsFirstDispentachoron(int xsb, int ysb, int zsb, int wsb, double dx0, double dy0, double dz0, double dw0) {
+		double value = 0;
+
+		//Contribution (1,0,0,0)
+		double dx1 = dx0 - 1 - SQUISH_CONSTANT_4D;
+		double dy1 = dy0 - 0 - SQUISH_CONSTANT_4D;
+		double dz1 = dz0 - 0 - SQUISH_CONSTANT_4D;
+		double dw1 = dw0 - 0 - SQUISH_CONSTANT_4D;
+		double attn1 = 2 - dx1 * dx1 - dy1 * dy1 - dz1 * dz1 - dw1 * dw1;
+		if (attn1 > 0) {
+			attn1 *= attn1;
+			value += attn1 * attn1 * extrapolate(xsb + 1, ysb + 0, zsb + 0, wsb + 0, dx1, dy1, dz1, dw1);
+		}
+
+		//Contribution (0,1,0,0)
+		double dx2 = dx0 - 0 - SQUISH_CONSTANT_4D;
+		double dy2 = dy0 - 1 - SQUISH_CONSTANT_4D;
+		double dz2 = dz1;
+		double dw2 = dw1;
+		double attn2 = 2 - dx2 * dx2 - dy2 * dy2 - dz2 * dz2 - dw2 * dw2;
+		if (attn2 > 0) {
+			attn2 *= attn2;
+			value += attn2 * attn2 * extrapolate(xsb + 0, ysb + 1, zsb + 0, wsb + 0, dx2, dy2, dz2, dw2);
+		}
+
+		//Contribution (0,0,1,0)
+		double dx3 = dx2;
+		double dy3 = dy1;
+		double dz3 = dz0 - 1 - SQUISH_CONSTANT_4D;
+		double dw3 = dw1;
+		double attn3 = 2 - dx3 * dx3 - dy3 * dy3 - dz3 * dz3 - dw3 * dw3;
+		if (attn3 > 0) {
+			attn3 *= attn3;
+			value += attn3 * attn3 * extrapolate(xsb + 0, ysb + 0, zsb + 1, wsb + 0, dx3, dy3, dz3, dw3);
+		}
+
+		//Contribution (0,0,0,1)
+		double dx4 = dx2;
+		double dy4 = dy1;
+		double dz4 = dz1;
+		double dw4 = dw0 - 1 - SQUISH_CONSTANT_4D;
+		double attn4 = 2 - dx4 * dx4 - dy4 * dy4 - dz4 * dz4 - dw4 * dw4;
+		if (attn4 > 0) {
+			attn4 *= attn4;
+			value += attn4 * attn4 * extrapolate(xsb + 0, ysb + 0, zsb + 0, wsb + 1, dx4, dy4, dz4, dw4);
+		}
+		
+		//Contribution (1,1,0,0)
+		double dx5 = dx0 - 1 - 2 * SQUISH_CONSTANT_4D;
+		double dy5 = dy0 - 1 - 2 * SQUISH_CONSTANT_4D;
+		double dz5 = dz0 - 0 - 2 * SQUISH_CONSTANT_4D;
+		double dw5 = dw0 - 0 - 2 * SQUISH_CONSTANT_4D;
+		double attn5 = 2 - dx5 * dx5 - dy5 * dy5 - dz5 * dz5 - dw5 * dw5;
+		if (attn5 > 0) {
+			attn5 *= attn5;
+			value += attn5 * attn5 * extrapolate(xsb + 1, ysb + 1, zsb + 0, wsb + 0, dx5, dy5, dz5, dw5);
+		}
+		
+		//Contribution (1,0,1,0)
+		double dx6 = dx0 - 1 - 2 * SQUISH_CONSTANT_4D;
+		double dy6 = dy0 - 0 - 2 * SQUISH_CONSTANT_4D;
+		double dz6 = dz0 - 1 - 2 * SQUISH_CONSTANT_4D;
+		double dw6 = dw0 - 0 - 2 * SQUISH_CONSTANT_4D;
+		double attn6 = 2 - dx6 * dx6 - dy6 * dy6 - dz6 * dz6 - dw6 * dw6;
+		if (attn6 > 0) {
+			attn6 *= attn6;
+			value += attn6 * attn6 * extrapolate(xsb + 1, ysb + 0, zsb + 1, wsb + 0, dx6, dy6, dz6, dw6);
+		}
+
+		//Contribution (1,0,0,1)
+		double dx7 = dx0 - 1 - 2 * SQUISH_CONSTANT_4D;
+		double dy7 = dy0 - 0 - 2 * SQUISH_CONSTANT_4D;
+		double dz7 = dz0 - 0 - 2 * SQUISH_CONSTANT_4D;
+		double dw7 = dw0 - 1 - 2 * SQUISH_CONSTANT_4D;
+		double attn7 = 2 - dx7 * dx7 - dy7 * dy7 - dz7 * dz7 - dw7 * dw7;
+		if (attn7 > 0) {
+			attn7 *= attn7;
+			value += attn7 * attn7 * extrapolate(xsb + 1, ysb + 0, zsb + 0, wsb + 1, dx7, dy7, dz7, dw7);
+		}
+		
+		//Contribution (0,1,1,0)
+		double dx8 = dx0 - 0 - 2 * SQUISH_CONSTANT_4D;
+		double dy8 = dy0 - 1 - 2 * SQUISH_CONSTANT_4D;
+		double dz8 = dz0 - 1 - 2 * SQUISH_CONSTANT_4D;
+		double dw8 = dw0 - 0 - 2 * SQUISH_CONSTANT_4D;
+		double attn8 = 2 - dx8 * dx8 - dy8 * dy8 - dz8 * dz8 - dw8 * dw8;
+		if (attn8 > 0) {
+			attn8 *= attn8;
+			value += attn8 * attn8 * extrapolate(xsb + 0, ysb + 1, zsb + 1, wsb + 0, dx8, dy8, dz8, dw8);
+		}
+		
+		//Contribution (0,1,0,1)
+		double dx9 = dx0 - 0 - 2 * SQUISH_CONSTANT_4D;
+		double dy9 = dy0 - 1 - 2 * SQUISH_CONSTANT_4D;
+		double dz9 = dz0 - 0 - 2 * SQUISH_CONSTANT_4D;
+		double dw9 = dw0 - 1 - 2 * SQUISH_CONSTANT_4D;
+		double attn9 = 2 - dx9 * dx9 - dy9 * dy9 - dz9 * dz9 - dw9 * dw9;
+		if (attn9 > 0) {
+			attn9 *= attn9;
+			value += attn9 * attn9 * extrapolate(xsb + 0, ysb + 1, zsb + 0, wsb + 1, dx9, dy9, dz9, dw9);
+		}
+		
+		//Contribution (0,0,1,1)
+		double dx10 = dx0 - 0 - 2 * SQUISH_CONSTANT_4D;
+		double dy10 = dy0 - 0 - 2 * SQUISH_CONSTANT_4D;
+		double dz10 = dz0 - 1 - 2 * SQUISH_CONSTANT_4D;
+		double dw10 = dw0 - 1 - 2 * SQUISH_CONSTANT_4D;
+		double attn10 = 2 - dx10 * dx10 - dy10 * dy10 - dz10 * dz10 - dw10 * dw10;
+		if (attn10 > 0) {
+			attn10 *= attn10;
+			value += attn10 * attn10 * extrapolate(xsb + 0, ysb + 0, zsb + 1, wsb + 1, dx10, dy10, dz10, dw10);
+		}
+		return value;
+	}
+	
+	//Contributions of the vertices of the second dispentachoron (Rectified 4-Simplex), split from eval to keep it small enough for the JIT.
+	private double contributionsSecondDispentachoron(int xsb, int ysb, int zsb, int wsb, double dx0, double dy0, double dz0, double dw0) {
+		double value = 0;
+
+		//Contribution (1,1,1,0)
+		double dx4 = dx0 - 1 - 3 * SQUISH_CONSTANT_4D;
+		double dy4 = dy0 - 1 - 3 * SQUISH_CONSTANT_4D;
+		double dz4 = dz0 - 1 - 3 * SQUISH_CONSTANT_4D;
+		double dw4 = dw0 - 3 * SQUISH_CONSTANT_4D;
+		double attn4 = 2 - dx4 * dx4 - dy4 * dy4 - dz4 * dz4 - dw4 * dw4;
+		if (attn4 > 0) {
+			attn4 *= attn4;
+			value += attn4 * attn4 * extrapolate(xsb + 1, ysb + 1, zsb + 1, wsb + 0, dx4, dy4, dz4, dw4);
+		}
+
+		//Contribution (1,1,0,1)
+		double dx3 = dx4;
+		double dy3 = dy4;
+		double dz3 = dz0 - 3 * SQUISH_CONSTANT_4D;
+		double dw3 = dw0 - 1 - 3 * SQUISH_CONSTANT_4D;
+		double attn3 = 2 - dx3 * dx3 - dy3 * dy3 - dz3 * dz3 - dw3 * dw3;
+		if (attn3 > 0) {
+			attn3 *= attn3;
+			value += attn3 * attn3 * extrapolate(xsb + 1, ysb + 1, zsb + 0, wsb + 1, dx3, dy3, dz3, dw3);
+		}
+
+		//Contribution (1,0,1,1)
+		double dx2 = dx4;
+		double dy2 = dy0 - 3 * SQUISH_CONSTANT_4D;
+		double dz2 = dz4;
+		double dw2 = dw3;
+		double attn2 = 2 - dx2 * dx2 - dy2 * dy2 - dz2 * dz2 - dw2 * dw2;
+		if (attn2 > 0) {
+			attn2 *= attn2;
+			value += attn2 * attn2 * extrapolate(xsb + 1, ysb + 0, zsb + 1, wsb + 1, dx2, dy2, dz2, dw2);
+		}
+
+		//Contribution (0,1,1,1)
+		double dx1 = dx0 - 3 * SQUISH_CONSTANT_4D;
+		double dz1 = dz4;
+		double dy1 = dy4;
+		double dw1 = dw3;
+		double attn1 = 2 - dx1 * dx1 - dy1 * dy1 - dz1 * dz1 - dw1 * dw1;
+		if (attn1 > 0) {
+			attn1 *= attn1;
+			value += attn1 * attn1 * extrapolate(xsb + 0, ysb + 1, zsb + 1, wsb + 1, dx1, dy1, dz1, dw1);
+		}
+		
+		//Contribution (1,1,0,0)
+		double dx5 = dx0 - 1 - 2 * SQUISH_CONSTANT_4D;
+		double dy5 = dy0 - 1 - 2 * SQUISH_CONSTANT_4D;
+		double dz5 = dz0 - 0 - 2 * SQUISH_CONSTANT_4D;
+		double dw5 = dw0 - 0 - 2 * SQUISH_CONSTANT_4D;
+		double attn5 = 2 - dx5 * dx5 - dy5 * dy5 - dz5 * dz5 - dw5 * dw5;
+		if (attn5 > 0) {
+			attn5 *= attn5;
+			value += attn5 * attn5 * extrapolate(xsb + 1, ysb + 1, zsb + 0, wsb + 0, dx5, dy5, dz5, dw5);
+		}
+		
+		//Contribution (1,0,1,0)
+		double dx6 = dx0 - 1 - 2 * SQUISH_CONSTANT_4D;
+		double dy6 = dy0 - 0 - 2 * SQUISH_CONSTANT_4D;
+		double dz6 = dz0 - 1 - 2 * SQUISH_CONSTANT_4D;
+		double dw6 = dw0 - 0 - 2 * SQUISH_CONSTANT_4D;
+		double attn6 = 2 - dx6 * dx6 - dy6 * dy6 - dz6 * dz6 - dw6 * dw6;
+		if (attn6 > 0) {
+			attn6 *= attn6;
+			value += attn6 * attn6 * extrapolate(xsb + 1, ysb + 0, zsb + 1, wsb + 0, dx6, dy6, dz6, dw6);
+		}
+
+		//Contribution (1,0,0,1)
+		double dx7 = dx0 - 1 - 2 * SQUISH_CONSTANT_4D;
+		double dy7 = dy0 - 0 - 2 * SQUISH_CONSTANT_4D;
+		double dz7 = dz0 - 0 - 2 * SQUISH_CONSTANT_4D;
+		double dw7 = dw0 - 1 - 2 * SQUISH_CONSTANT_4D;
+		double attn7 = 2 - dx7 * dx7 - dy7 * dy7 - dz7 * dz7 - dw7 * dw7;
+		if (attn7 > 0) {
+			attn7 *= attn7;
+			value += attn7 * attn7 * extrapolate(xsb + 1, ysb + 0, zsb + 0, wsb + 1, dx7, dy7, dz7, dw7);
+		}
+		
+		//Contribution (0,1,1,0)
+		double dx8 = dx0 - 0 - 2 * SQUISH_CONSTANT_4D;
+		double dy8 = dy0 - 1 - 2 * SQUISH_CONSTANT_4D;
+		double dz8 = dz0 - 1 - 2 * SQUISH_CONSTANT_4D;
+		double dw8 = dw0 - 0 - 2 * SQUISH_CONSTANT_4D;
+		double attn8 = 2 - dx8 * dx8 - dy8 * dy8 - dz8 * dz8 - dw8 * dw8;
+		if (attn8 > 0) {
+			attn8 *= attn8;
+			value += attn8 * attn8 * extrapolate(xsb + 0, ysb + 1, zsb + 1, wsb + 0, dx8, dy8, dz8, dw8);
+		}
+		
+		//Contribution (0,1,0,1)
+		double dx9 = dx0 - 0 - 2 * SQUISH_CONSTANT_4D;
+		double dy9 = dy0 - 1 - 2 * SQUISH_CONSTANT_4D;
+		double dz9 = dz0 - 0 - 2 * SQUISH_CONSTANT_4D;
+		double dw9 = dw0 - 1 - 2 * SQUISH_CONSTANT_4D;
+		double attn9 = 2 - dx9 * dx9 - dy9 * dy9 - dz9 * dz9 - dw9 * dw9;
+		if (attn9 > 0) {
+			attn9 *= attn9;
+			value += attn9 * attn9 * extrapolate(xsb + 0, ysb + 1, zsb + 0, wsb + 1, dx9, dy9, dz9, dw9);
+		}
+		
+		//Contribution (0,0,1,1)
+		double dx10 = dx0 - 0 - 2 * SQUISH_CONSTANT_4D;
+		double dy10 = dy0 - 0 - 2 * SQUISH_CONSTANT_4D;
+		double dz10 = dz0 - 1 - 2 * SQUISH_CONSTANT_4D;
+		double dw10 = dw0 - 1 - 2 * SQUISH_CONSTANT_4D;
+		double attn10 = 2 - dx10 * dx10 - dy10 * dy10 - dz10 * dz10 - dw10 * dw10;
+		if (attn10 > 0) {
+			attn10 *= attn10;
+			value += attn10 * attn10 * extrapolate(xsb + 0, ysb + 0, zsb + 1, wsb + 1, dx10, dy10, dz10, dw10);
+		}
+		return value;
+	}
+	
+	private double extrapolate(Lattice2D lattice, int xsb, int ysb, double dx, double dy)
+	{
+		if (lattice == null)
+			return extrapolate(xsb, ysb, dx, dy);
+		int slot = (xsb - lattice.xsb + 1) * 4 + (ysb - lattice.ysb + 1);
+		int index = lattice.index[slot];
+		if (index < 0)
+			index = lattice.index[slot] = perm[(perm[xsb & 0xFF] + ysb) & 0xFF] & 0x0E;
+		return gradients2D[index] * dx
+			+ gradients2D[index + 1] * dy;
+	}
+	
+	private static int fastFloor(double x) {
+		int xi = (int) x;
+		return x < xi ? xi - 1 : xi;
+	}
+	
+	//The gradient indices around one rhombus, for lattice points from (xsb-1, ysb-1) to (xsb+2, ysb+2).
+	//-1 when not looked up yet.
+	private static class Lattice2D {
+		int xsb = Integer.MIN_VALUE;
+		int ysb = Integer.MIN_VALUE;
+		final int[] index = new int[16];
+		
+		void moveTo(int xsb, int ysb) {
+			this.xsb = xsb;
+			this.ysb = ysb;
+			Arrays.fill(index, -1);
+		}
+	}
+	
 	private double extrapolate(int xsb, int ysb, double dx, double dy)
 	{
 		int index = perm[(perm[xsb & 0xFF] + ysb) & 0xFF] & 0x0E;
@@ -0,0 +1,114 @@
+package art.util;
+
+import java.awt.Color;
+
+/**
+ * Colors as packed ARGB ints, so that no Color is created while drawing.
+ * <br> The static methods convert HSB values to ARGB ints without allocating, giving exactly what Color.getHSBColor
+ * would have. Pieces drawing many shapes along a hue range can look them up in a {@link HueTable} instead, and get
+ * the matching Color objects from a {@link ColorCache} when they draw with Graphics2D.
+ */
+public class Palette {
+
+	/**
+	 * @return The opaque ARGB color, the same as <code>Color.getHSBColor(h, s, b).getRGB()</code>.
+	 */
+	public static int hsb(float h, float s, float b) {
+		return Color.HSBtoRGB(h, s, b);
+	}
+
+	/**
+	 * @return The ARGB color, the same as a Color made from the HSB color and the alpha as floats.
+	 */
+	public static int hsba(float h, float s, float b, float alpha) {
+		return (Color.HSBtoRGB(h, s, b) & 0xFFFFFF) | ((int) (alpha*255 + 0.5f)) << 24;
+	}
+
+	/**
+	 * ARGB colors of a hue range, computed once at a chosen resolution.
+	 * <br> A hue is rounded to the closest of the steps, so the colors are only exact on the steps: pieces use it as an
+	 * option, their default images being drawn with {@link Palette#hsb(float, float, float)}.
+	 */
+	public static class HueTable {
+		private final float from, scale;
+		private final int[] colors;
+
+		/**
+		 * @param from The first hue of the range.
+		 * @param to The last hue of the range, which can be lower than the first one.
+		 * @param steps The amount of colors in the table, at least 2.
+		 */
+		public HueTable(float from, float to, int steps, float saturation, float brightness) {
+			if(steps < 2)
+				throw new IllegalArgumentException("A hue table needs at least 2 steps, not " + steps);
+			this.from = from;
+			this.scale = from == to ? 0 : (steps-1) / (to-from);
+			colors = new int[steps];
+			for(int i = 0; i < steps; i++)
+				colors[i] = hsb(from + (to-from) * i / (steps-1), saturation, brightness);
+		}
+
+		/**
+		 * @return The color of the closest step, hues out of the range giving the color of its closest end.
+		 */
+		public int get(float hue) {
+			int i = Math.round((hue-from) * scale);
+			return colors[Math.max(0, Math.min(colors.length-1, i))];
+		}
+	}
+
+	/**
+	 * Gives the same Color object every time it is asked for the same ARGB value.
+	 * <br> Pieces use colors in a small range, so after a few shapes nothing new is allocated when setting a color.
+	 * <br> Not thread safe, each render should have its own.
+	 */
+	public static class ColorCache {
+		private static final int MAX_SIZE = 1 << 16;
+
+		private int[] keys = new int[256];
+		private Color[] values = new Color[256];
+		private int size;
+
+		public Color get(int argb) {
+			int mask = keys.length-1;
+			int i = mix(argb) & mask;
+			while(values[i] != null) {
+				if(keys[i] == argb)
+					return values[i];
+				i = (i+1) & mask;
+			}
+			Color c = new Color(argb, true);
+			if(size >= MAX_SIZE) {
+				// a piece using that many colors doesn't gain anything from the cache
+				return c;
+			}
+			keys[i] = argb;
+			values[i] = c;
+			if(++size*2 > keys.length)
+				grow();
+			return c;
+		}
+
+		private void grow() {
+			int[] oldKeys = keys;
+			Color[] oldValues = values;
+			keys = new int[oldKeys.length*2];
+			values = new Color[oldValues.length*2];
+			int mask = keys.length-1;
+			for(int j = 0; j < oldKeys.length; j++) {
+				if(oldValues[j] == null)
+					continue;
+				int i = mix(oldKeys[j]) & mask;
+				while(values[i] != null)
+					i = (i+1) & mask;
+				keys[i] = oldKeys[j];
+				values[i] = oldValues[j];
+			}
+		}
+
+		private static int mix(int h) {
+			h *= 0x9E3779B9;
+			return h ^ (h >>> 16);
+		}
+	}
+}
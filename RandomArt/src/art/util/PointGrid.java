@@ -0,0 +1,175 @@
+package art.util;
+
+/**
+ * A uniform grid over the points of a {@link PointSet}, to find the nearest neighbours of a position without going
+ * through every point.
+ * <br> The grid is built once, and queries don't allocate anything: results are written in arrays given by the caller.
+ * <br> When several points are at the same distance, the one with the lowest index comes first, which is what a
+ * scan over the points in order with a strict comparison would give.
+ * <br> A grid can cover only a range of indices of the set, for pieces that link points to a part of the set only.
+ * Indices given to and returned by queries are always indices in the whole set.
+ * <br> The grid doesn't follow changes to the PointSet, it has to be built again after moving or adding points.
+ */
+public class PointGrid {
+
+	private final PointSet points;
+	private final int cellSize;
+	private final int minX, minY;
+	private final int columns, rows;
+	/** Points of cell c are cellItems[cellStart[c]] to cellItems[cellStart[c+1]-1], by increasing index. */
+	private final int[] cellStart;
+	private final int[] cellItems;
+
+	/**
+	 * Builds a grid over every point, with about two points per cell.
+	 */
+	public PointGrid(PointSet points) {
+		this(points, 0, points.size(), autoCellSize(points, 0, points.size()));
+	}
+
+	/**
+	 * Builds a grid over every point.
+	 * @param cellSize The width and height of each cell, a good value being about the distance between neighbours.
+	 */
+	public PointGrid(PointSet points, int cellSize) {
+		this(points, 0, points.size(), cellSize);
+	}
+
+	/**
+	 * Builds a grid over the points with an index from <code>from</code> included to <code>to</code> excluded. An empty
+	 * range gives a grid where queries find nothing.
+	 * @param cellSize The width and height of each cell, a good value being about the distance between neighbours.
+	 */
+	public PointGrid(PointSet points, int from, int to, int cellSize) {
+		if(cellSize < 1)
+			throw new IllegalArgumentException("Cell size must be positive, got " + cellSize);
+		if(from < 0 || to > points.size())
+			throw new IndexOutOfBoundsException("Range " + from + ".." + to + " out of a set of " + points.size() + " points");
+		this.points = points;
+		this.cellSize = cellSize;
+		int n = Math.max(0, to - from);
+		to = from + n;
+
+		int minX = 0, minY = 0, maxX = 0, maxY = 0;
+		if(n > 0) {
+			minX = maxX = points.x(from);
+			minY = maxY = points.y(from);
+			for(int i = from + 1; i < to; i++) {
+				minX = Math.min(minX, points.x(i));
+				maxX = Math.max(maxX, points.x(i));
+				minY = Math.min(minY, points.y(i));
+				maxY = Math.max(maxY, points.y(i));
+			}
+		}
+		this.minX = minX;
+		this.minY = minY;
+		this.columns = (maxX - minX) / cellSize + 1;
+		this.rows = (maxY - minY) / cellSize + 1;
+
+		// counting sort of the points by cell, which keeps them by increasing index inside each cell
+		cellStart = new int[columns*rows + 1];
+		for(int i = from; i < to; i++)
+			cellStart[cell(i) + 1]++;
+		for(int c = 0; c < columns*rows; c++)
+			cellStart[c + 1] += cellStart[c];
+		cellItems = new int[n];
+		int[] fill = new int[columns*rows];
+		for(int i = from; i < to; i++) {
+			int c = cell(i);
+			cellItems[cellStart[c] + fill[c]++] = i;
+		}
+	}
+
+	private static int autoCellSize(PointSet points, int from, int to) {
+		int n = to - from;
+		if(n < 2)
+			return 1;
+		int minX = points.x(from), maxX = minX, minY = points.y(from), maxY = minY;
+		for(int i = from + 1; i < to; i++) {
+			minX = Math.min(minX, points.x(i));
+			maxX = Math.max(maxX, points.x(i));
+			minY = Math.min(minY, points.y(i));
+			maxY = Math.max(maxY, points.y(i));
+		}
+		double area = (double) (maxX - minX + 1) * (maxY - minY + 1);
+		return Math.max(1, (int) Math.ceil(Math.sqrt(area * 2 / n)));
+	}
+
+	private int cell(int i) {
+		return (points.y(i) - minY) / cellSize * columns + (points.x(i) - minX) / cellSize;
+	}
+
+	/**
+	 * Finds the k points closest to (x, y), from the closest to the farthest.
+	 * @param exclude The index of a point that can't be returned, usually the one the query is made for, or -1.
+	 * @param k The amount of neighbours to find.
+	 * @param indices Receives the indices of the neighbours, must hold at least k values.
+	 * @param dist2 Receives the squared distance of each neighbour, must hold at least k values.
+	 * @return The amount of neighbours found, less than k only if there aren't enough points.
+	 */
+	public int kNearest(int x, int y, int exclude, int k, int[] indices, long[] dist2) {
+		return kNearest(x, y, exclude, k, Long.MAX_VALUE, indices, dist2);
+	}
+
+	/**
+	 * Finds the k points closest to (x, y), from the closest to the farthest, ignoring the points that are too far.
+	 * @param exclude The index of a point that can't be returned, usually the one the query is made for, or -1.
+	 * @param k The amount of neighbours to find.
+	 * @param maxDist2 The squared distance above which points are ignored.
+	 * @param indices Receives the indices of the neighbours, must hold at least k values.
+	 * @param dist2 Receives the squared distance of each neighbour, must hold at least k values.
+	 * @return The amount of neighbours found, less than k if there aren't enough points close enough.
+	 */
+	public int kNearest(int x, int y, int exclude, int k, long maxDist2, int[] indices, long[] dist2) {
+		if(k <= 0 || cellItems.length == 0)
+			return 0;
+		int found = 0;
+		int cx = Math.floorDiv(x - minX, cellSize);
+		int cy = Math.floorDiv(y - minY, cellSize);
+		// farthest ring that still touches the grid
+		int maxRing = Math.max(Math.max(cx, columns - 1 - cx), Math.max(cy, rows - 1 - cy));
+		for(int ring = 0; ring <= maxRing; ring++) {
+			int y0 = cy - ring, y1 = cy + ring;
+			for(int gy = Math.max(y0, 0); gy <= Math.min(y1, rows - 1); gy++) {
+				boolean edge = gy == y0 || gy == y1;
+				int step = edge ? 1 : 2*ring;
+				for(int gx = cx - ring; gx <= cx + ring; gx += step) {
+					if(gx >= 0 && gx < columns)
+						found = scanCell(gy*columns + gx, x, y, exclude, k, maxDist2, found, indices, dist2);
+				}
+			}
+			// every point of the next rings is farther than ring*cellSize
+			long reach = (long) ring * cellSize;
+			if(reach*reach >= maxDist2 || found == k && dist2[k-1] <= reach*reach)
+				break;
+		}
+		return found;
+	}
+
+	private int scanCell(int c, int x, int y, int exclude, int k, long maxDist2, int found, int[] indices, long[] dist2) {
+		for(int j = cellStart[c]; j < cellStart[c + 1]; j++) {
+			int i = cellItems[j];
+			if(i == exclude)
+				continue;
+			long d = points.dist2(i, x, y);
+			if(d > maxDist2)
+				continue;
+			if(found == k && !closer(d, i, dist2[k-1], indices[k-1]))
+				continue;
+			// insertion in the sorted list of neighbours
+			int pos = found == k ? k - 1 : found++;
+			while(pos > 0 && closer(d, i, dist2[pos-1], indices[pos-1])) {
+				dist2[pos] = dist2[pos-1];
+				indices[pos] = indices[pos-1];
+				pos--;
+			}
+			dist2[pos] = d;
+			indices[pos] = i;
+		}
+		return found;
+	}
+
+	private static boolean closer(long d1, int i1, long d2, int i2) {
+		return d1 < d2 || d1 == d2 && i1 < i2;
+	}
+}
@@ -0,0 +1,199 @@
+package art.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import art.util.PoissonDisk.PVector;
+
+/**
+ * A list of integer points, stored as two parallel arrays instead of one object per point.
+ * <br> Points are only referred to by their index, so going through them, moving them or measuring distances
+ * doesn't allocate anything.
+ */
+public class PointSet {
+
+	public interface PointConsumer {
+		void accept(int index, int x, int y);
+	}
+
+	public interface PointPredicate {
+		boolean test(int index, int x, int y);
+	}
+
+	public interface PointKey {
+		double key(int x, int y);
+	}
+
+	private int[] xs;
+	private int[] ys;
+	private int size;
+
+	public PointSet() {
+		this(16);
+	}
+
+	public PointSet(int capacity) {
+		xs = new int[Math.max(1, capacity)];
+		ys = new int[xs.length];
+	}
+
+	public static PointSet of(List<PVector> points) {
+		PointSet set = new PointSet(points.size());
+		for(PVector p : points)
+			set.add(p.x, p.y);
+		return set;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Removes every point, keeping the arrays for the next ones.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	public int x(int i) {
+		return xs[i];
+	}
+
+	public int y(int i) {
+		return ys[i];
+	}
+
+	public void add(int x, int y) {
+		if(size == xs.length) {
+			xs = Arrays.copyOf(xs, size*2);
+			ys = Arrays.copyOf(ys, size*2);
+		}
+		xs[size] = x;
+		ys[size] = y;
+		size++;
+	}
+
+	public void set(int i, int x, int y) {
+		xs[i] = x;
+		ys[i] = y;
+	}
+
+	/**
+	 * Moves every point by the same offset.
+	 */
+	public void translate(int dx, int dy) {
+		for(int i = 0; i < size; i++) {
+			xs[i] += dx;
+			ys[i] += dy;
+		}
+	}
+
+	/**
+	 * @return The squared distance between the point at index i and (x, y).
+	 */
+	public long dist2(int i, int x, int y) {
+		long dx = xs[i] - x;
+		long dy = ys[i] - y;
+		return dx*dx + dy*dy;
+	}
+
+	/**
+	 * @return The squared distance between the points at index i and j.
+	 */
+	public long dist2(int i, int j) {
+		return dist2(i, xs[j], ys[j]);
+	}
+
+	/**
+	 * @return The distance between the point at index i and (x, y).
+	 */
+	public double dist(int i, double x, double y) {
+		double dx = xs[i] - x;
+		double dy = ys[i] - y;
+		return Math.sqrt(dx*dx + dy*dy);
+	}
+
+	public void forEach(PointConsumer consumer) {
+		for(int i = 0; i < size; i++)
+			consumer.accept(i, xs[i], ys[i]);
+	}
+
+	/**
+	 * Removes every point matching the predicate, keeping the others in the same order.
+	 * @return The amount of removed points.
+	 */
+	public int removeIf(PointPredicate predicate) {
+		int kept = 0;
+		for(int i = 0; i < size; i++) {
+			if(!predicate.test(i, xs[i], ys[i])) {
+				xs[kept] = xs[i];
+				ys[kept] = ys[i];
+				kept++;
+			}
+		}
+		int removed = size - kept;
+		size = kept;
+		return removed;
+	}
+
+	/**
+	 * Sorts the points by increasing key. The sort is stable, so points with the same key keep their order, like
+	 * with Collections.sort.
+	 */
+	public void sort(PointKey key) {
+		double[] keys = new double[size];
+		int[] order = new int[size];
+		for(int i = 0; i < size; i++) {
+			keys[i] = key.key(xs[i], ys[i]);
+			order[i] = i;
+		}
+		mergeSort(order, new int[size], keys, 0, size);
+
+		int[] sortedX = new int[xs.length];
+		int[] sortedY = new int[ys.length];
+		for(int i = 0; i < size; i++) {
+			sortedX[i] = xs[order[i]];
+			sortedY[i] = ys[order[i]];
+		}
+		xs = sortedX;
+		ys = sortedY;
+	}
+
+	private static void mergeSort(int[] order, int[] buffer, double[] keys, int from, int to) {
+		if(to - from < 2)
+			return;
+		int middle = (from + to) >>> 1;
+		mergeSort(order, buffer, keys, from, middle);
+		mergeSort(order, buffer, keys, middle, to);
+		if(Double.compare(keys[order[middle-1]], keys[order[middle]]) <= 0)
+			return;
+		System.arraycopy(order, from, buffer, from, to - from);
+		int left = from, right = middle;
+		for(int i = from; i < to; i++) {
+			if(right >= to || left < middle && Double.compare(keys[buffer[left]], keys[buffer[right]]) <= 0)
+				order[i] = buffer[left++];
+			else
+				order[i] = buffer[right++];
+		}
+	}
+
+	public PointSet copy() {
+		PointSet copy = new PointSet(size);
+		System.arraycopy(xs, 0, copy.xs, 0, size);
+		System.arraycopy(ys, 0, copy.ys, 0, size);
+		copy.size = size;
+		return copy;
+	}
+
+	public ArrayList<PVector> toList() {
+		ArrayList<PVector> list = new ArrayList<>(size);
+		for(int i = 0; i < size; i++)
+			list.add(new PVector(xs[i], ys[i]));
+		return list;
+	}
+}
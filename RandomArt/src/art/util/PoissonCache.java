@@ -0,0 +1,249 @@
+package art.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Keeps the points of {@link PoissonDisk#poissonDiskPoints(long, int, int)} for each seed, radius and size, so rendering
+ * the same seed again doesn't sample it again.
+ * <br> Point sets are kept in memory, the least recently used ones being dropped once they take more than the byte budget.
+ * They can also be written to a folder, one small binary file per key, so they survive between runs: a set that isn't
+ * in memory is then read back through a memory mapping before being sampled.
+ * <br> Every call returns a copy, that the caller can move, sort or filter as it likes.
+ * <br> A cache can be used from several threads at once. Two threads missing the same key at the same time both sample it.
+ */
+public class PoissonCache {
+
+	/** "PDSC", at the start of every file. */
+	private static final int MAGIC = 0x50445343;
+	private static final int VERSION = 1;
+	private static final int HEADER_BYTES = 4 + 4 + 8 + 4 + 4 + 4 + 1;
+	/** Rough amount of bytes an entry takes besides its coordinates. */
+	private static final int ENTRY_OVERHEAD = 128;
+
+	private static volatile PoissonCache shared = new PoissonCache(64L << 20, null);
+
+	private final long byteBudget;
+	private final File directory;
+	private final LinkedHashMap<Key, PointSet> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long bytes;
+	private long hits, diskHits, misses;
+
+	/**
+	 * @param byteBudget The amount of memory the point sets can take, about 8 bytes per point.
+	 * @param directory Where point sets are written and read back, or null to keep them in memory only.
+	 */
+	public PoissonCache(long byteBudget, File directory) {
+		if(byteBudget < 0)
+			throw new IllegalArgumentException("Byte budget can't be negative, got " + byteBudget);
+		this.byteBudget = byteBudget;
+		this.directory = directory;
+	}
+
+	/**
+	 * @return The cache used by the pieces, keeping 64MB of points in memory unless replaced.
+	 */
+	public static PoissonCache shared() {
+		return shared;
+	}
+
+	public static void setShared(PoissonCache cache) {
+		shared = cache;
+	}
+
+	/**
+	 * Gives the same points as {@link PoissonDisk#poissonDiskPoints(long, int, int)}, sampling them only if they aren't
+	 * in memory or on disk already.
+	 * @return A copy of the points, in the order they were found.
+	 */
+	public PointSet points(long seed, int r, int size) {
+		Key key = new Key(seed, r, size);
+		synchronized(this) {
+			PointSet points = entries.get(key);
+			if(points != null) {
+				hits++;
+				Probe.count("poisson cache hits", 1);
+				return points.copy();
+			}
+		}
+		PointSet points = directory == null ? null : readQuietly(file(key), key);
+		if(points != null) {
+			synchronized(this) {
+				diskHits++;
+			}
+			Probe.count("poisson cache disk hits", 1);
+		} else {
+			points = PoissonDisk.poissonDiskPoints(seed, r, size);
+			synchronized(this) {
+				misses++;
+			}
+			Probe.count("poisson cache misses", 1);
+			if(directory != null) {
+				try {
+					write(file(key), key, points);
+				} catch (IOException e) {
+					Probe.count("poisson cache write errors", 1);
+					System.err.println("Couldn't write Poisson cache file " + file(key) + ": " + e.getMessage());
+				}
+			}
+		}
+		put(key, points.copy());
+		return points;
+	}
+
+	public synchronized long hits() {
+		return hits;
+	}
+
+	public synchronized long diskHits() {
+		return diskHits;
+	}
+
+	public synchronized long misses() {
+		return misses;
+	}
+
+	/**
+	 * @return The estimated amount of memory taken by the point sets in memory.
+	 */
+	public synchronized long bytes() {
+		return bytes;
+	}
+
+	/**
+	 * Drops every point set kept in memory. Files are left as they are.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		bytes = 0;
+	}
+
+	private synchronized void put(Key key, PointSet points) {
+		long size = bytes(points);
+		if(size > byteBudget)
+			return;
+		PointSet previous = entries.put(key, points);
+		if(previous != null)
+			bytes -= bytes(previous);
+		bytes += size;
+		Iterator<PointSet> eldest = entries.values().iterator();
+		while(bytes > byteBudget) {
+			bytes -= bytes(eldest.next());
+			eldest.remove();
+		}
+	}
+
+	private static long bytes(PointSet points) {
+		return points.size() * 8L + ENTRY_OVERHEAD;
+	}
+
+	private File file(Key key) {
+		return new File(directory, "poisson " + key.seed + " " + key.r + " " + key.size + ".bin");
+	}
+
+	private static PointSet readQuietly(File file, Key key) {
+		if(!file.isFile())
+			return null;
+		try {
+			return read(file, key);
+		} catch (IOException e) {
+			Probe.count("poisson cache unreadable files", 1);
+			System.err.println("Ignoring unreadable Poisson cache file " + file + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the points in a little-endian binary file: a header with the magic number, the version, the seed, the radius,
+	 * the size, the amount of points and the bytes per coordinate, then the x and y of each point. Coordinates take
+	 * 2 bytes when the size allows it, 4 otherwise.
+	 * <br> The file is written next to its final place and then moved, so a reader never sees half a file.
+	 */
+	static void write(File file, Key key, PointSet points) throws IOException {
+		File parent = file.getAbsoluteFile().getParentFile();
+		parent.mkdirs();
+		File temporary = File.createTempFile("poisson", ".tmp", parent);
+		try {
+			int coordinateBytes = key.size <= 1 << 16 ? 2 : 4;
+			ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + points.size() * coordinateBytes * 2).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.putInt(MAGIC).putInt(VERSION).putLong(key.seed).putInt(key.r).putInt(key.size).putInt(points.size())
+				.put((byte) coordinateBytes);
+			for(int i = 0; i < points.size(); i++) {
+				if(coordinateBytes == 2)
+					buffer.putChar((char) points.x(i)).putChar((char) points.y(i));
+				else
+					buffer.putInt(points.x(i)).putInt(points.y(i));
+			}
+			buffer.flip();
+			try(FileChannel channel = FileChannel.open(temporary.toPath(), StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				while(buffer.hasRemaining())
+					channel.write(buffer);
+			}
+			Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			temporary.delete();
+		}
+	}
+
+	/**
+	 * Reads a file written by {@link #write(File, Key, PointSet)}, checking it holds the points of the given key.
+	 */
+	static PointSet read(File file, Key key) throws IOException {
+		try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			if(channel.size() < HEADER_BYTES)
+				throw new IOException("File too short");
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			if(buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+				throw new IOException("Not a Poisson cache file of version " + VERSION);
+			if(buffer.getLong() != key.seed || buffer.getInt() != key.r || buffer.getInt() != key.size)
+				throw new IOException("File holds the points of another key");
+			int count = buffer.getInt();
+			int coordinateBytes = buffer.get();
+			if(count < 0 || coordinateBytes != 2 && coordinateBytes != 4 || buffer.remaining() != (long) count * coordinateBytes * 2)
+				throw new IOException("Wrong amount of points");
+			PointSet points = new PointSet(count);
+			if(coordinateBytes == 2) {
+				for(int i = 0; i < count; i++)
+					points.add(buffer.getChar(), buffer.getChar());
+			} else {
+				for(int i = 0; i < count; i++)
+					points.add(buffer.getInt(), buffer.getInt());
+			}
+			return points;
+		}
+	}
+
+	static class Key {
+		final long seed;
+		final int r, size;
+
+		Key(long seed, int r, int size) {
+			this.seed = seed;
+			this.r = r;
+			this.size = size;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if(!(o instanceof Key))
+				return false;
+			Key k = (Key) o;
+			return seed == k.seed && r == k.r && size == k.size;
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(seed) * 31 * 31 + r * 31 + size;
+		}
+	}
+}
@@ -1,8 +1,11 @@
 package art.util;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class PoissonDisk {
 	@SuppressWarnings("hiding")
@@ -31,7 +34,9 @@ public class PoissonDisk {
 			return this;
 		}
 		public double dist(double x2, double x1) {
-			return Math.sqrt(Math.pow(this.x - x2, 2) + Math.pow(this.y - x1, 2));
+			double dx = this.x - x2;
+			double dy = this.y - x1;
+			return Math.sqrt(dx*dx + dy*dy);
 		}
 		public double dist(PVector v) {
 			return dist(v.x, v.y);
@@ -42,7 +47,454 @@ public class PoissonDisk {
 		}
 	}
 
+	/**
+	 * Generates points in a square, so that no two points are closer than r, using Bridson's algorithm.
+	 * <br> Accepted points are stored in a background grid with cells of size r/&radic;2, so each cell holds at most one
+	 * point, and a candidate only needs to be checked against the 5x5 cells around it instead of every point found so far.
+	 * This makes the sampling linear in the amount of points.
+	 * <br> The random values are drawn in the exact same order as {@link #poissonDiskSamplingBruteForce(long, int, int)},
+	 * and candidates are rejected with the same test, so a seed gives back the same points, in the same order, as it
+	 * always did. The brute force version is kept as the reference for this compatibility.
+	 * @param seed The seed used to place the points.
+	 * @param r The minimal distance between two points.
+	 * @param size The size of the square, points are in [0, size[.
+	 * @return The points, in the order they were found.
+	 */
+	public static PointSet poissonDiskPoints(long seed, int r, int size) {
+		Random random = new Random(seed);
+		PointSet samples = new PointSet();
+		float pi = (float) Math.PI;
+		
+		double cellSize = r / Math.sqrt(2);
+		int cells = (int) Math.ceil(size / cellSize);
+		int reach = (int) Math.ceil(r / cellSize);
+		long r2 = (long) r * r;
+		int[] grid = new int[cells * cells];
+		Arrays.fill(grid, -1);
+		
+		// the active list only holds coordinates, since its first point isn't part of the samples
+		int[] activeX = new int[64];
+		int[] activeY = new int[64];
+		activeX[0] = random.nextInt(size);
+		activeY[0] = random.nextInt(size);
+
+		int len = 1;
+		while (len > 0) {
+			// picks random index uniformly at random from the active list
+			int index = random.nextInt(len);
+			int sampleX = activeX[index], sampleY = activeY[index];
+			activeX[index] = activeX[len - 1];
+			activeY[index] = activeY[len - 1];
+			activeX[len - 1] = sampleX;
+			activeY[len - 1] = sampleY;
+			boolean found = false;
+			for (int i = 0; i < 30; ++i) {
+				// generates a point uniformly at random in the sample's
+				// disk situated at a distance from r to 2*r
+				float angle = 2 * pi * random.nextFloat();
+				float radius = random.nextInt(r) + r;
+				int x = (int) (radius * Math.cos(angle)) + sampleX;
+				int y = (int) (radius * Math.sin(angle)) + sampleY;
+
+				if (0 <= x && x < size && 0 <= y && y < size) {
+					int cx = (int) (x / cellSize);
+					int cy = (int) (y / cellSize);
+					if (isFree(grid, cells, cx, cy, reach, samples, x, y, r2)) {
+						grid[cy * cells + cx] = samples.size();
+						samples.add(x, y);
+						if (len == activeX.length) {
+							activeX = Arrays.copyOf(activeX, len * 2);
+							activeY = Arrays.copyOf(activeY, len * 2);
+						}
+						activeX[len] = x;
+						activeY[len] = y;
+						len++;
+						found = true;
+					}
+				}
+			}
+			if (!found)
+				len--;
+		}
+		return samples;
+	}
+	
+	private static boolean isFree(int[] grid, int cells, int cx, int cy, int reach, PointSet samples, int x, int y, long r2) {
+		int minX = Math.max(0, cx - reach), maxX = Math.min(cells - 1, cx + reach);
+		int minY = Math.max(0, cy - reach), maxY = Math.min(cells - 1, cy + reach);
+		for (int gy = minY; gy <= maxY; gy++) {
+			for (int gx = minX; gx <= maxX; gx++) {
+				int q = grid[gy * cells + gx];
+				if (q >= 0 && samples.dist2(q, x, y) <= r2)
+					return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Gives the minimal distance around a point for {@link PoissonDisk#poissonDiskPoints(long, int, int, int, Radius)}.
+	 */
+	public interface Radius {
+		double at(int x, int y);
+	}
+
+	/**
+	 * Generates points in a square with a density that changes from place to place, using Bridson's algorithm.
+	 * <br> Each point gets the radius given at its position, clamped to [minR, maxR], and two points are kept only if they
+	 * are farther apart than the bigger of their radii. New points are tried at a distance from r to 2*r of a point, r
+	 * being its radius.
+	 * <br> Points are stored in one grid per power of two between minR and maxR, a point going in the grid whose cells are
+	 * small enough to hold one of its kind at most. A candidate checks the cells around it in each grid, so the cost stays
+	 * linear in the amount of points as long as the radius changes smoothly.
+	 * @param seed The seed used to place the points.
+	 * @param minR The smallest distance allowed between two points.
+	 * @param maxR The biggest distance ever asked between two points.
+	 * @param size The size of the square, points are in [0, size[.
+	 * @param radius Gives the minimal distance wanted around each position, for example from the brightness of an image,
+	 * from a noise or from the distance to the center.
+	 * @return The points, in the order they were found.
+	 */
+	public static PointSet poissonDiskPoints(long seed, int minR, int maxR, int size, Radius radius) {
+		if(minR < 1 || maxR < minR)
+			throw new IllegalArgumentException("Radius range must be positive, got " + minR + " to " + maxR);
+		Random random = new Random(seed);
+		LevelGrids grids = new LevelGrids(minR, maxR, size);
+		float pi = (float) Math.PI;
+
+		int startX = random.nextInt(size), startY = random.nextInt(size);
+		grids.add(startX, startY, clamp(radius.at(startX, startY), minR, maxR));
+		int[] active = new int[64];
+		int len = 1;
+
+		while (len > 0) {
+			int index = random.nextInt(len);
+			int sample = active[index];
+			active[index] = active[len - 1];
+			active[len - 1] = sample;
+			int sampleX = grids.samples.x(sample), sampleY = grids.samples.y(sample);
+			double sampleR = grids.radii[sample];
+			boolean found = false;
+			for (int i = 0; i < 30; ++i) {
+				float angle = 2 * pi * random.nextFloat();
+				double distance = sampleR * (1 + random.nextFloat());
+				int x = (int) (distance * Math.cos(angle)) + sampleX;
+				int y = (int) (distance * Math.sin(angle)) + sampleY;
+				if (x < 0 || x >= size || y < 0 || y >= size)
+					continue;
+				double r = clamp(radius.at(x, y), minR, maxR);
+				if (grids.isFree(x, y, r)) {
+					grids.add(x, y, r);
+					if (len == active.length)
+						active = Arrays.copyOf(active, len * 2);
+					active[len++] = grids.samples.size() - 1;
+					found = true;
+				}
+			}
+			if (!found)
+				len--;
+		}
+		return grids.samples;
+	}
+
+	private static double clamp(double r, int minR, int maxR) {
+		return Double.isNaN(r) ? minR : Math.max(minR, Math.min(maxR, r));
+	}
+
+	/**
+	 * The grids of {@link PoissonDisk#poissonDiskPoints(long, int, int, int, Radius)}: level l holds the points with a
+	 * radius from minR*2^l to minR*2^(l+1), in cells of minR*2^l/&radic;2 so that each cell holds one point at most.
+	 * <br> Every level also counts its points in blocks as big as the cells of the last level, so that a big candidate
+	 * skips the parts of the fine levels where there is nothing.
+	 */
+	private static class LevelGrids {
+		final int minR, maxR, levels;
+		final double[] cellSize;
+		final int[] cells;
+		final int[][] grids;
+		final double blockSize;
+		final int blocks;
+		final int[][] blockCounts;
+		final PointSet samples = new PointSet();
+		double[] radii = new double[64];
+
+		LevelGrids(int minR, int maxR, int size) {
+			this.minR = minR;
+			this.maxR = maxR;
+			int levels = 1;
+			while((long) minR << levels <= maxR)
+				levels++;
+			this.levels = levels;
+			cellSize = new double[levels];
+			cells = new int[levels];
+			grids = new int[levels][];
+			blockCounts = new int[levels][];
+			for(int level = 0; level < levels; level++) {
+				cellSize[level] = ((long) minR << level) / Math.sqrt(2);
+				cells[level] = (int) Math.ceil(size / cellSize[level]);
+				grids[level] = new int[cells[level] * cells[level]];
+				Arrays.fill(grids[level], -1);
+			}
+			blockSize = cellSize[levels - 1];
+			blocks = cells[levels - 1];
+			for(int level = 0; level < levels; level++)
+				blockCounts[level] = new int[blocks * blocks];
+		}
+
+		void add(int x, int y, double r) {
+			int level = Math.min(levels - 1, 31 - Integer.numberOfLeadingZeros((int) (r / minR)));
+			grids[level][(int) (y / cellSize[level]) * cells[level] + (int) (x / cellSize[level])] = samples.size();
+			blockCounts[level][(int) (y / blockSize) * blocks + (int) (x / blockSize)]++;
+			if(samples.size() == radii.length)
+				radii = Arrays.copyOf(radii, radii.length * 2);
+			radii[samples.size()] = r;
+			samples.add(x, y);
+		}
+
+		boolean isFree(int x, int y, double r) {
+			for(int level = 0; level < levels; level++) {
+				// points of this level are never farther than this from a point they conflict with
+				double reach = Math.max(r, Math.min(maxR, (long) minR << (level + 1)));
+				int minBX = Math.max(0, (int) ((x - reach) / blockSize)), maxBX = Math.min(blocks - 1, (int) ((x + reach) / blockSize));
+				int minBY = Math.max(0, (int) ((y - reach) / blockSize)), maxBY = Math.min(blocks - 1, (int) ((y + reach) / blockSize));
+				for(int by = minBY; by <= maxBY; by++) {
+					for(int bx = minBX; bx <= maxBX; bx++) {
+						if(blockCounts[level][by * blocks + bx] == 0)
+							continue;
+						// cells of the block that are in reach, a cell on the side of two blocks being checked twice
+						double c = cellSize[level];
+						int n = cells[level];
+						int minX = Math.max((int) (bx * blockSize / c), Math.max(0, (int) ((x - reach) / c)));
+						int maxX = Math.min((int) ((bx + 1) * blockSize / c), Math.min(n - 1, (int) ((x + reach) / c)));
+						int minY = Math.max((int) (by * blockSize / c), Math.max(0, (int) ((y - reach) / c)));
+						int maxY = Math.min((int) ((by + 1) * blockSize / c), Math.min(n - 1, (int) ((y + reach) / c)));
+						for (int gy = minY; gy <= maxY; gy++) {
+							for (int gx = minX; gx <= maxX; gx++) {
+								int q = grids[level][gy * n + gx];
+								if (q < 0)
+									continue;
+								double limit = Math.max(r, radii[q]);
+								if (samples.dist2(q, x, y) <= limit * limit)
+									return false;
+							}
+						}
+					}
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Generates points in a square, so that no two points are closer than r, spreading the work over the common fork-join pool.
+	 * @see #poissonDiskPointsParallel(long, int, int, ForkJoinPool)
+	 */
+	public static PointSet poissonDiskPointsParallel(long seed, int r, int size) {
+		return poissonDiskPointsParallel(seed, r, size, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Generates points in a square, so that no two points are closer than r, spreading the work over several threads.
+	 * <br> The square is split in tiles much bigger than r, sampled in 4 phases so that the tiles of a phase are never
+	 * next to each other: they can't place points close enough to conflict, and are sampled at the same time. Each tile runs
+	 * Bridson's algorithm with its own Random, derived from the seed and the position of the tile, starting from the points
+	 * already placed around it by the previous phases and from one random point inside it.
+	 * <br> The points depend on the seed only, not on the amount of threads, but they aren't the points of
+	 * {@link #poissonDiskPoints(long, int, int)} for the same seed.
+	 * @param seed The seed used to place the points.
+	 * @param r The minimal distance between two points.
+	 * @param size The size of the square, points are in [0, size[.
+	 * @param pool The threads on which the tiles are sampled.
+	 * @return The points, tile after tile, by phase and then by row.
+	 */
+	public static PointSet poissonDiskPointsParallel(long seed, int r, int size, ForkJoinPool pool) {
+		TiledSampling sampling = new TiledSampling(seed, r, size);
+		for(int phase = 0; phase < 4; phase++)
+			pool.invoke(sampling.new Tiles(phase, 0, sampling.phaseTiles(phase)));
+		PointSet samples = new PointSet();
+		for(int phase = 0; phase < 4; phase++) {
+			for(int k = 0; k < sampling.phaseTiles(phase); k++) {
+				PointSet tile = sampling.samples[sampling.tileOf(phase, k)];
+				for(int i = 0; i < tile.size(); i++)
+					samples.add(tile.x(i), tile.y(i));
+			}
+		}
+		return samples;
+	}
+
+	/**
+	 * The state shared by the tiles of {@link PoissonDisk#poissonDiskPointsParallel(long, int, int, ForkJoinPool)}.
+	 * <br> The grid holds coordinates instead of indices, since points are only numbered once every tile is done. A tile
+	 * only writes the cells of its own points, and reads cells at most 2r away, which belong to tiles of other phases.
+	 */
+	private static class TiledSampling {
+		final long seed;
+		final int r, size;
+		final double cellSize;
+		final int cells, reach;
+		final long r2;
+		final int[] gridX, gridY;
+		final int tileSize, tiles;
+		final PointSet[] samples;
+
+		TiledSampling(long seed, int r, int size) {
+			this.seed = seed;
+			this.r = r;
+			this.size = size;
+			cellSize = r / Math.sqrt(2);
+			cells = (int) Math.ceil(size / cellSize);
+			reach = (int) Math.ceil(r / cellSize);
+			r2 = (long) r * r;
+			gridX = new int[cells * cells];
+			gridY = new int[cells * cells];
+			Arrays.fill(gridX, -1);
+			tileSize = Math.max(4*r, 256);
+			tiles = (size + tileSize - 1) / tileSize;
+			samples = new PointSet[tiles * tiles];
+		}
+
+		/**
+		 * Tiles of a phase are those whose column has the parity of phase%2, and row the parity of phase/2.
+		 */
+		int phaseTiles(int phase) {
+			return ((tiles + 1 - phase%2) / 2) * ((tiles + 1 - phase/2) / 2);
+		}
+
+		int tileOf(int phase, int k) {
+			int columns = (tiles + 1 - phase%2) / 2;
+			int tx = k % columns * 2 + phase%2;
+			int ty = k / columns * 2 + phase/2;
+			return ty * tiles + tx;
+		}
+
+		void sample(int tile) {
+			int tx = tile % tiles, ty = tile / tiles;
+			int x0 = tx * tileSize, y0 = ty * tileSize;
+			int x1 = Math.min(size, x0 + tileSize), y1 = Math.min(size, y0 + tileSize);
+			Random random = new Random(seed * 0x9E3779B97F4A7C15L + tile);
+			PointSet points = new PointSet();
+			samples[tile] = points;
+			float pi = (float) Math.PI;
+
+			// points of the previous phases that can still spawn points in this tile
+			int[] activeX = new int[64];
+			int[] activeY = new int[64];
+			int len = 0;
+			int minX = Math.max(0, (int) ((x0 - 2*r) / cellSize)), maxX = Math.min(cells - 1, (int) ((x1 + 2*r) / cellSize));
+			int minY = Math.max(0, (int) ((y0 - 2*r) / cellSize)), maxY = Math.min(cells - 1, (int) ((y1 + 2*r) / cellSize));
+			for(int gy = minY; gy <= maxY; gy++) {
+				for(int gx = minX; gx <= maxX; gx++) {
+					int px = gridX[gy * cells + gx];
+					if(px < 0)
+						continue;
+					if(len == activeX.length) {
+						activeX = Arrays.copyOf(activeX, len * 2);
+						activeY = Arrays.copyOf(activeY, len * 2);
+					}
+					activeX[len] = px;
+					activeY[len] = gridY[gy * cells + gx];
+					len++;
+				}
+			}
+			int startX = x0 + random.nextInt(x1 - x0), startY = y0 + random.nextInt(y1 - y0);
+			if(tryAdd(startX, startY, points)) {
+				if(len == activeX.length) {
+					activeX = Arrays.copyOf(activeX, len * 2);
+					activeY = Arrays.copyOf(activeY, len * 2);
+				}
+				activeX[len] = startX;
+				activeY[len] = startY;
+				len++;
+			}
+
+			while (len > 0) {
+				int index = random.nextInt(len);
+				int sampleX = activeX[index], sampleY = activeY[index];
+				activeX[index] = activeX[len - 1];
+				activeY[index] = activeY[len - 1];
+				activeX[len - 1] = sampleX;
+				activeY[len - 1] = sampleY;
+				boolean found = false;
+				for (int i = 0; i < 30; ++i) {
+					float angle = 2 * pi * random.nextFloat();
+					float radius = random.nextInt(r) + r;
+					int x = (int) (radius * Math.cos(angle)) + sampleX;
+					int y = (int) (radius * Math.sin(angle)) + sampleY;
+
+					if (x0 <= x && x < x1 && y0 <= y && y < y1 && tryAdd(x, y, points)) {
+						if (len == activeX.length) {
+							activeX = Arrays.copyOf(activeX, len * 2);
+							activeY = Arrays.copyOf(activeY, len * 2);
+						}
+						activeX[len] = x;
+						activeY[len] = y;
+						len++;
+						found = true;
+					}
+				}
+				if (!found)
+					len--;
+			}
+		}
+
+		private boolean tryAdd(int x, int y, PointSet points) {
+			int cx = (int) (x / cellSize);
+			int cy = (int) (y / cellSize);
+			int minX = Math.max(0, cx - reach), maxX = Math.min(cells - 1, cx + reach);
+			int minY = Math.max(0, cy - reach), maxY = Math.min(cells - 1, cy + reach);
+			for (int gy = minY; gy <= maxY; gy++) {
+				for (int gx = minX; gx <= maxX; gx++) {
+					int qx = gridX[gy * cells + gx];
+					if (qx < 0)
+						continue;
+					long dx = qx - x, dy = gridY[gy * cells + gx] - y;
+					if (dx*dx + dy*dy <= r2)
+						return false;
+				}
+			}
+			gridX[cy * cells + cx] = x;
+			gridY[cy * cells + cx] = y;
+			points.add(x, y);
+			return true;
+		}
+
+		private class Tiles extends RecursiveAction {
+			private static final long serialVersionUID = 1L;
+
+			private final int phase, from, to;
+
+			Tiles(int phase, int from, int to) {
+				this.phase = phase;
+				this.from = from;
+				this.to = to;
+			}
+
+			@Override
+			protected void compute() {
+				if(to - from > 1) {
+					int middle = (from + to) >>> 1;
+					invokeAll(new Tiles(phase, from, middle), new Tiles(phase, middle, to));
+					return;
+				}
+				if(from < to)
+					sample(tileOf(phase, from));
+			}
+		}
+	}
+
+	/**
+	 * Same as {@link #poissonDiskPoints(long, int, int)}, with one PVector per point.
+	 */
 	public static ArrayList<PVector> poissonDiskSampling(long seed, int r, int size) {
+		return poissonDiskPoints(seed, r, size).toList();
+	}
+
+	/**
+	 * The original sampling, that checks every candidate against every point already found. It is quadratic in the
+	 * amount of points, so it should only be used to check that {@link #poissonDiskPoints(long, int, int)} still gives
+	 * back the same points for a seed.
+	 */
+	public static ArrayList<PVector> poissonDiskSamplingBruteForce(long seed, int r, int size) {
 		Random random = new Random(seed);
 		ArrayList<PVector> samples = new ArrayList<>();
 		ArrayList<PVector> active_ArrayList = new ArrayList<>();
@@ -0,0 +1,188 @@
+package art.util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Records how long each phase of a render takes, how much it allocates, and a few values the pieces find worth
+ * reporting, like the amount of points they generated.
+ * <br> A render is surrounded by {@link #begin(String, long, int)} and {@link #end()}, on the thread that generates it.
+ * In between, pieces call {@link #phase(String)} at the end of each step, and {@link #count(String, long)} or
+ * {@link #value(String, double)} for anything else.
+ * <br> When {@link #enabled} is false, which is the default, every method returns right away without doing anything.
+ */
+public class Probe {
+
+	/**
+	 * Whether renders are recorded. It should be set before starting the threads that render.
+	 */
+	public static boolean enabled = false;
+
+	private static final ThreadLocal<Report> current = new ThreadLocal<>();
+	private static final com.sun.management.ThreadMXBean threads = allocationBean();
+
+	/**
+	 * Starts recording a render on the current thread.
+	 * @param piece The name of the piece, as shown in reports.
+	 */
+	public static void begin(String piece, long seed, int size) {
+		if(!enabled)
+			return;
+		current.set(new Report(piece, seed, size));
+	}
+
+	/**
+	 * Stops recording the render of the current thread.
+	 * @return What was recorded, or null if nothing was being recorded.
+	 */
+	public static Report end() {
+		if(!enabled)
+			return null;
+		Report report = current.get();
+		if(report == null)
+			return null;
+		current.remove();
+		report.finish();
+		return report;
+	}
+
+	/**
+	 * Ends a phase: its time and allocations are everything since the previous phase, or since the render began.
+	 * <br> A phase reported several times adds up.
+	 */
+	public static void phase(String name) {
+		if(!enabled)
+			return;
+		Report report = current.get();
+		if(report != null)
+			report.phase(name);
+	}
+
+	/**
+	 * Adds an amount to a counter of the current render.
+	 */
+	public static void count(String name, long amount) {
+		if(!enabled)
+			return;
+		Report report = current.get();
+		if(report != null)
+			report.values.merge(name, (double) amount, Double::sum);
+	}
+
+	/**
+	 * Sets a value of the current render, replacing the previous one.
+	 */
+	public static void value(String name, double value) {
+		if(!enabled)
+			return;
+		Report report = current.get();
+		if(report != null)
+			report.values.put(name, value);
+	}
+
+	private static long allocatedBytes() {
+		return threads == null ? 0 : threads.getCurrentThreadAllocatedBytes();
+	}
+
+	private static com.sun.management.ThreadMXBean allocationBean() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if(!(bean instanceof com.sun.management.ThreadMXBean))
+			return null;
+		com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) bean;
+		if(!allocations.isThreadAllocatedMemorySupported())
+			return null;
+		allocations.setThreadAllocatedMemoryEnabled(true);
+		return allocations;
+	}
+
+	/**
+	 * Everything recorded during one render.
+	 */
+	public static class Report {
+		public final String piece;
+		public final long seed;
+		public final int size;
+
+		private final long start, startBytes;
+		private long mark, markBytes;
+		private long totalNanos, totalBytes;
+		private final Map<String, Long> phaseNanos = new LinkedHashMap<>();
+		private final Map<String, Long> phaseBytes = new LinkedHashMap<>();
+		private final Map<String, Double> values = new LinkedHashMap<>();
+
+		Report(String piece, long seed, int size) {
+			this.piece = piece;
+			this.seed = seed;
+			this.size = size;
+			start = mark = System.nanoTime();
+			startBytes = markBytes = allocatedBytes();
+		}
+
+		private void phase(String name) {
+			long now = System.nanoTime();
+			long bytes = allocatedBytes();
+			phaseNanos.merge(name, now - mark, Long::sum);
+			phaseBytes.merge(name, bytes - markBytes, Long::sum);
+			mark = now;
+			markBytes = bytes;
+		}
+
+		private void finish() {
+			totalNanos = System.nanoTime() - start;
+			totalBytes = allocatedBytes() - startBytes;
+		}
+
+		/** Time from begin to end, in nanoseconds. */
+		public long totalNanos() {
+			return totalNanos;
+		}
+
+		/** Bytes allocated by the rendering thread from begin to end, or 0 if the JVM can't tell. */
+		public long totalBytes() {
+			return totalBytes;
+		}
+
+		/** The time of each phase in nanoseconds, in the order they first ended. */
+		public Map<String, Long> phaseNanos() {
+			return Collections.unmodifiableMap(phaseNanos);
+		}
+
+		/** The bytes allocated during each phase, in the order they first ended. */
+		public Map<String, Long> phaseBytes() {
+			return Collections.unmodifiableMap(phaseBytes);
+		}
+
+		/** The counters and values reported by the piece. */
+		public Map<String, Double> values() {
+			return Collections.unmodifiableMap(values);
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder();
+			sb.append(piece).append(" seed ").append(seed).append(" at ").append(size).append("px: ")
+				.append(millis(totalNanos)).append(", ").append(megabytes(totalBytes)).append(" allocated");
+			for(Map.Entry<String, Long> phase : phaseNanos.entrySet())
+				sb.append("\n  ").append(phase.getKey()).append(": ").append(millis(phase.getValue())).append(", ")
+					.append(megabytes(phaseBytes.get(phase.getKey())));
+			for(Map.Entry<String, Double> value : values.entrySet())
+				sb.append("\n  ").append(value.getKey()).append(" = ").append(format(value.getValue()));
+			return sb.toString();
+		}
+
+		private static String millis(long nanos) {
+			return String.format("%.2fms", nanos/1e6);
+		}
+
+		private static String megabytes(long bytes) {
+			return String.format("%.2fMB", bytes/1e6);
+		}
+
+		private static String format(double value) {
+			return value == Math.rint(value) && Math.abs(value) < 1e15 ? Long.toString((long) value) : String.format("%.4f", value);
+		}
+	}
+}
@@ -0,0 +1,188 @@
+package art.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import art.util.Probe.Report;
+
+/**
+ * Gathers the reports of many renders, and sums them up as percentiles of every recorded metric.
+ * <br> Metrics are named <code>total.time</code> and <code>total.allocated</code> for the whole render,
+ * <code>phase.&lt;name&gt;.time</code> and <code>phase.&lt;name&gt;.allocated</code> for each phase, and after the name
+ * given by the piece for counters and values. Times are in milliseconds and allocations in bytes.
+ * <br> Reports can be added from several threads at once.
+ */
+public class ProbeSummary {
+
+	private final List<Report> reports = new ArrayList<>();
+
+	public synchronized void add(Report report) {
+		if(report != null)
+			reports.add(report);
+	}
+
+	public synchronized List<Report> reports() {
+		return new ArrayList<>(reports);
+	}
+
+	/**
+	 * The statistics of one metric over all the renders that reported it.
+	 */
+	public static class Metric {
+		public final String name;
+		public final int count;
+		public final double min, mean, p50, p90, p99, max;
+
+		Metric(String name, double[] samples) {
+			this.name = name;
+			Arrays.sort(samples);
+			double sum = 0;
+			for(double s : samples)
+				sum += s;
+			this.count = samples.length;
+			this.min = samples[0];
+			this.mean = sum/samples.length;
+			this.p50 = percentile(samples, 50);
+			this.p90 = percentile(samples, 90);
+			this.p99 = percentile(samples, 99);
+			this.max = samples[samples.length-1];
+		}
+
+		/**
+		 * Nearest-rank percentile of sorted samples.
+		 */
+		private static double percentile(double[] sorted, int p) {
+			int rank = (int) Math.ceil(p/100.0 * sorted.length);
+			return sorted[Math.max(0, rank-1)];
+		}
+	}
+
+	/**
+	 * @return One metric per name, in the order they were first reported.
+	 */
+	public synchronized List<Metric> metrics() {
+		Map<String, List<Double>> samples = new LinkedHashMap<>();
+		for(Report r : reports) {
+			add(samples, "total.time", r.totalNanos()/1e6);
+			add(samples, "total.allocated", r.totalBytes());
+			for(Map.Entry<String, Long> phase : r.phaseNanos().entrySet()) {
+				add(samples, "phase." + phase.getKey() + ".time", phase.getValue()/1e6);
+				add(samples, "phase." + phase.getKey() + ".allocated", r.phaseBytes().get(phase.getKey()));
+			}
+			for(Map.Entry<String, Double> value : r.values().entrySet())
+				add(samples, value.getKey(), value.getValue());
+		}
+		List<Metric> metrics = new ArrayList<>(samples.size());
+		for(Map.Entry<String, List<Double>> metric : samples.entrySet()) {
+			double[] values = new double[metric.getValue().size()];
+			for(int i = 0; i < values.length; i++)
+				values[i] = metric.getValue().get(i);
+			metrics.add(new Metric(metric.getKey(), values));
+		}
+		return metrics;
+	}
+
+	private static void add(Map<String, List<Double>> samples, String name, double value) {
+		samples.computeIfAbsent(name, k -> new ArrayList<>()).add(value);
+	}
+
+	/**
+	 * Writes the summary as JSON if the file name ends with .json, as CSV otherwise.
+	 */
+	public void write(File file) throws IOException {
+		if(file.getName().toLowerCase(Locale.ROOT).endsWith(".json"))
+			writeJson(file);
+		else
+			writeCsv(file);
+	}
+
+	/**
+	 * Writes one line per metric, with its count, min, mean, p50, p90, p99 and max.
+	 */
+	public void writeCsv(File file) throws IOException {
+		try(PrintWriter out = new PrintWriter(file, "UTF-8")) {
+			out.println("metric,count,min,mean,p50,p90,p99,max");
+			for(Metric m : metrics())
+				out.println(csv(m.name) + "," + m.count + "," + number(m.min) + "," + number(m.mean) + "," + number(m.p50) + "," +
+						number(m.p90) + "," + number(m.p99) + "," + number(m.max));
+		}
+	}
+
+	/**
+	 * Writes the metrics, followed by every report as it was recorded.
+	 */
+	public void writeJson(File file) throws IOException {
+		List<Report> reports = reports();
+		try(PrintWriter out = new PrintWriter(file, "UTF-8")) {
+			out.println("{");
+			out.println("  \"renders\": " + reports.size() + ",");
+			out.println("  \"metrics\": [");
+			List<Metric> metrics = metrics();
+			for(int i = 0; i < metrics.size(); i++) {
+				Metric m = metrics.get(i);
+				out.println("    {\"name\": " + json(m.name) + ", \"count\": " + m.count + ", \"min\": " + number(m.min) +
+						", \"mean\": " + number(m.mean) + ", \"p50\": " + number(m.p50) + ", \"p90\": " + number(m.p90) +
+						", \"p99\": " + number(m.p99) + ", \"max\": " + number(m.max) + "}" + (i < metrics.size()-1 ? "," : ""));
+			}
+			out.println("  ],");
+			out.println("  \"reports\": [");
+			for(int i = 0; i < reports.size(); i++) {
+				Report r = reports.get(i);
+				StringBuilder sb = new StringBuilder();
+				sb.append("    {\"piece\": ").append(json(r.piece)).append(", \"seed\": ").append(r.seed).append(", \"size\": ").append(r.size)
+					.append(", \"timeMs\": ").append(number(r.totalNanos()/1e6)).append(", \"allocatedBytes\": ").append(r.totalBytes())
+					.append(", \"phases\": {");
+				String separator = "";
+				for(Map.Entry<String, Long> phase : r.phaseNanos().entrySet()) {
+					sb.append(separator).append(json(phase.getKey())).append(": {\"timeMs\": ").append(number(phase.getValue()/1e6))
+						.append(", \"allocatedBytes\": ").append(r.phaseBytes().get(phase.getKey())).append("}");
+					separator = ", ";
+				}
+				sb.append("}, \"values\": {");
+				separator = "";
+				for(Map.Entry<String, Double> value : r.values().entrySet()) {
+					sb.append(separator).append(json(value.getKey())).append(": ").append(number(value.getValue()));
+					separator = ", ";
+				}
+				sb.append("}}").append(i < reports.size()-1 ? "," : "");
+				out.println(sb);
+			}
+			out.println("  ]");
+			out.println("}");
+		}
+	}
+
+	private static String number(double value) {
+		if(Double.isNaN(value) || Double.isInfinite(value))
+			return "null";
+		if(value == Math.rint(value) && Math.abs(value) < 1e15)
+			return Long.toString((long) value);
+		return String.format(Locale.ROOT, "%.4f", value);
+	}
+
+	private static String json(String text) {
+		StringBuilder sb = new StringBuilder("\"");
+		for(char c : text.toCharArray()) {
+			if(c == '"' || c == '\\')
+				sb.append('\\').append(c);
+			else if(c < 0x20)
+				sb.append(String.format("\\u%04x", (int) c));
+			else
+				sb.append(c);
+		}
+		return sb.append('"').toString();
+	}
+
+	private static String csv(String text) {
+		if(text.indexOf(',') < 0 && text.indexOf('"') < 0)
+			return text;
+		return "\"" + text.replace("\"", "\"\"") + "\"";
+	}
+}
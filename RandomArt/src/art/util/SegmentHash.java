@@ -0,0 +1,244 @@
+package art.util;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * A list of line segments, bucketed in a spatial hash so that the segments around a position can be found without
+ * going through all of them.
+ * <br> Each segment is stored in every cell its bounding box touches, so segments should be short compared to the cell
+ * size, or they end up in a lot of cells. The hash has no bounds: segments can be anywhere.
+ * <br> Segments are referred to by their index, in the order they were added.
+ */
+public class SegmentHash {
+
+	private final double cellSize;
+
+	private double[] x1s = new double[16], y1s = new double[16], x2s = new double[16], y2s = new double[16];
+	private int size;
+
+	// open addressing table from a cell to the first entry of its list, -1 for an empty slot
+	private long[] keys = new long[64];
+	private int[] heads = new int[64];
+	private int cells;
+	// linked lists of the segments in each cell
+	private int[] entrySegment = new int[64];
+	private int[] entryNext = new int[64];
+	private int entries;
+	// bounds of the cells holding at least one segment
+	private int minCellX = Integer.MAX_VALUE, minCellY = Integer.MAX_VALUE, maxCellX = Integer.MIN_VALUE, maxCellY = Integer.MIN_VALUE;
+
+	/**
+	 * @param cellSize The width and height of each cell, a good value being a bit more than the usual query radius.
+	 */
+	public SegmentHash(double cellSize) {
+		if(!(cellSize > 0))
+			throw new IllegalArgumentException("Cell size must be positive, got " + cellSize);
+		this.cellSize = cellSize;
+		Arrays.fill(heads, -1);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public double x1(int i) {
+		return x1s[i];
+	}
+
+	public double y1(int i) {
+		return y1s[i];
+	}
+
+	public double x2(int i) {
+		return x2s[i];
+	}
+
+	public double y2(int i) {
+		return y2s[i];
+	}
+
+	/**
+	 * Adds a segment going from (x1, y1) to (x2, y2).
+	 * @return The index of the segment.
+	 */
+	public int add(double x1, double y1, double x2, double y2) {
+		if(size == x1s.length) {
+			x1s = Arrays.copyOf(x1s, size*2);
+			y1s = Arrays.copyOf(y1s, size*2);
+			x2s = Arrays.copyOf(x2s, size*2);
+			y2s = Arrays.copyOf(y2s, size*2);
+		}
+		int index = size++;
+		x1s[index] = x1;
+		y1s[index] = y1;
+		x2s[index] = x2;
+		y2s[index] = y2;
+
+		int minX = cell(Math.min(x1, x2)), maxX = cell(Math.max(x1, x2));
+		int minY = cell(Math.min(y1, y2)), maxY = cell(Math.max(y1, y2));
+		for(int cy = minY; cy <= maxY; cy++)
+			for(int cx = minX; cx <= maxX; cx++)
+				insert(cx, cy, index);
+		minCellX = Math.min(minCellX, minX);
+		minCellY = Math.min(minCellY, minY);
+		maxCellX = Math.max(maxCellX, maxX);
+		maxCellY = Math.max(maxCellY, maxY);
+		return index;
+	}
+
+	/**
+	 * Looks for a segment whose end (x2, y2) is at a distance strictly lower than limit from (x, y).
+	 * @param filter Tells if a segment, given its index, should be considered at all.
+	 * @return true if there is such a segment accepted by the filter.
+	 */
+	public boolean anyEndWithin(double x, double y, double limit, IntPredicate filter) {
+		int minX = cell(x - limit), maxX = cell(x + limit);
+		int minY = cell(y - limit), maxY = cell(y + limit);
+		for(int cy = minY; cy <= maxY; cy++) {
+			for(int cx = minX; cx <= maxX; cx++) {
+				for(int e = head(cx, cy); e >= 0; e = entryNext[e]) {
+					int i = entrySegment[e];
+					double dx = x - x2s[i], dy = y - y2s[i];
+					if(Math.sqrt(dx*dx + dy*dy) < limit && filter.test(i))
+						return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Finds the segment whose start (x1, y1) is the closest to (x, y). When several are at the same distance, the first
+	 * one added is returned.
+	 * <br> Cells are searched in rings around the position, so the query is fast when the closest start is within a few
+	 * cells, and gets slower the farther it is.
+	 * @return The index of the segment, or -1 if there is none.
+	 */
+	public int nearestStart(double x, double y) {
+		if(size == 0)
+			return -1;
+		int cx = cell(x), cy = cell(y);
+		int maxRing = Math.max(Math.max(cx - minCellX, maxCellX - cx), Math.max(cy - minCellY, maxCellY - cy));
+		int best = -1;
+		double bestDist = Double.MAX_VALUE;
+		for(int ring = 0; ring <= maxRing; ring++) {
+			int y0 = cy - ring, y1 = cy + ring;
+			for(int gy = Math.max(y0, minCellY); gy <= Math.min(y1, maxCellY); gy++) {
+				int step = gy == y0 || gy == y1 ? 1 : 2*ring;
+				for(int gx = cx - ring; gx <= cx + ring; gx += step) {
+					if(gx < minCellX || gx > maxCellX)
+						continue;
+					for(int e = head(gx, gy); e >= 0; e = entryNext[e]) {
+						int i = entrySegment[e];
+						double dx = x - x1s[i], dy = y - y1s[i];
+						double dist = dx*dx + dy*dy;
+						if(dist < bestDist || dist == bestDist && i < best) {
+							bestDist = dist;
+							best = i;
+						}
+					}
+				}
+			}
+			// starts in the next rings are farther than (ring-1)*cellSize, keeping a ring of margin for rounding
+			double reach = (ring - 1) * cellSize;
+			if(best >= 0 && ring > 0 && bestDist <= reach*reach)
+				break;
+		}
+		return best;
+	}
+
+	/**
+	 * @return true if a segment crosses or touches the segment from (x1, y1) to (x2, y2), as told by
+	 * {@link #intersects(double, double, double, double, double, double, double, double)}.
+	 */
+	public boolean anyIntersecting(double x1, double y1, double x2, double y2) {
+		int minX = cell(Math.min(x1, x2)), maxX = cell(Math.max(x1, x2));
+		int minY = cell(Math.min(y1, y2)), maxY = cell(Math.max(y1, y2));
+		for(int cy = minY; cy <= maxY; cy++) {
+			for(int cx = minX; cx <= maxX; cx++) {
+				for(int e = head(cx, cy); e >= 0; e = entryNext[e]) {
+					int i = entrySegment[e];
+					if(intersects(x1s[i], y1s[i], x2s[i], y2s[i], x1, y1, x2, y2))
+						return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Tells if segment A, from (ax1, ay1) to (ax2, ay2), and segment B, from (bx1, by1) to (bx2, by2), have a point in common.
+	 * Parallel segments are never considered crossing.
+	 */
+	public static boolean intersects(double ax1, double ay1, double ax2, double ay2, double bx1, double by1, double bx2, double by2) {
+		double s1_x = ax2 - ax1, s1_y = ay2 - ay1;
+		double s2_x = bx2 - bx1, s2_y = by2 - by1;
+
+		double s = (-s1_y * (ax1 - bx1) + s1_x * (ay1 - by1)) / (-s2_x * s1_y + s1_x * s2_y);
+		double t = ( s2_x * (ay1 - by1) - s2_y * (ax1 - bx1)) / (-s2_x * s1_y + s1_x * s2_y);
+
+		return s >= 0 && s <= 1 && t >= 0 && t <= 1;
+	}
+
+	private int cell(double v) {
+		return (int) Math.floor(v / cellSize);
+	}
+
+	private static long key(int cx, int cy) {
+		return (long) cx << 32 | (cy & 0xFFFFFFFFL);
+	}
+
+	private static int slot(long key, int mask) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h >>> 32) & mask;
+	}
+
+	private int head(int cx, int cy) {
+		long key = key(cx, cy);
+		int mask = keys.length - 1;
+		for(int s = slot(key, mask); heads[s] >= 0; s = (s + 1) & mask)
+			if(keys[s] == key)
+				return heads[s];
+		return -1;
+	}
+
+	private void insert(int cx, int cy, int segment) {
+		if(entries == entrySegment.length) {
+			entrySegment = Arrays.copyOf(entrySegment, entries*2);
+			entryNext = Arrays.copyOf(entryNext, entries*2);
+		}
+		long key = key(cx, cy);
+		int mask = keys.length - 1;
+		int s = slot(key, mask);
+		while(heads[s] >= 0 && keys[s] != key)
+			s = (s + 1) & mask;
+		if(heads[s] < 0) {
+			keys[s] = key;
+			cells++;
+		}
+		entrySegment[entries] = segment;
+		entryNext[entries] = heads[s];
+		heads[s] = entries++;
+		if(cells*2 > keys.length)
+			grow();
+	}
+
+	private void grow() {
+		long[] oldKeys = keys;
+		int[] oldHeads = heads;
+		keys = new long[oldKeys.length*2];
+		heads = new int[oldHeads.length*2];
+		Arrays.fill(heads, -1);
+		int mask = keys.length - 1;
+		for(int j = 0; j < oldKeys.length; j++) {
+			if(oldHeads[j] < 0)
+				continue;
+			int s = slot(oldKeys[j], mask);
+			while(heads[s] >= 0)
+				s = (s + 1) & mask;
+			keys[s] = oldKeys[j];
+			heads[s] = oldHeads[j];
+		}
+	}
+}
@@ -0,0 +1,345 @@
+package art.util;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.geom.CubicCurve2D;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Draws the same shapes again and again at different places and in different colors, rasterizing each shape once as a
+ * coverage mask, a stamp, and then copying that mask in the right color at each place.
+ * <br> Shapes are ovals, lines and cubic curves, a shape being the same as another if it has the same size and points
+ * relative to its position. The 4096 last used shapes are kept.
+ * <br> Shapes are drawn with the stroke and antialiasing of the given graphics, like calling its methods would, and the
+ * result is the same pixels:
+ * <br> - Java2D works in float coordinates, so a shape doesn't always cover the same pixels when moved by a whole amount
+ * of pixels. It does as long as its coordinates keep the same float precision, so a stamp is only reused for shapes
+ * lying in the same power of two ranges of x and y. Shapes crossing one of those limits, or the side of the image, are
+ * left to Java2D.
+ * <br> - The mask of a stamp is taken from Java2D drawing it where it is first used, over transparent pixels, the pixels
+ * of the image being put back right after. Translucent antialiased shapes are always left to Java2D, as their coverage
+ * can't be read back.
+ * <br> - Stamps are copied with the Java2D source-over rules: opaque colors on fully covered pixels are simply written.
+ * Other runs are drawn with {@link IntRaster#blendRow(int, int, int, int, int)}.
+ * <br> The color of the graphics is changed by the shapes left to Java2D.
+ * <br> Not thread safe, each render should have its own.
+ */
+public class StampCache {
+
+	private static final int DRAW_OVAL = 0, FILL_OVAL = 1, DRAW_LINE = 2, DRAW_CURVE = 3;
+	/** The amount of shapes kept, the least recently used ones being dropped. */
+	private static final int MAX_SHAPES = 4096;
+
+	private final Graphics2D graphics;
+	private final IntRaster raster;
+	private final Map<Key, Shapes> stamps = new LinkedHashMap<>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, Shapes> eldest) {
+			return size() > MAX_SHAPES;
+		}
+	};
+	private int hits, misses;
+
+	/**
+	 * @param graphics The graphics of the image, whose stroke and antialiasing are used, and which draws the shapes that
+	 * can't use a stamp.
+	 */
+	public StampCache(BufferedImage image, Graphics2D graphics) {
+		this.graphics = graphics;
+		this.raster = new IntRaster(image);
+	}
+
+	/**
+	 * Same as <code>drawOval</code> on the graphics with the color.
+	 */
+	public void drawOval(int x, int y, int width, int height, int argb) {
+		if(width >= 0 && height >= 0)
+			draw(DRAW_OVAL, x, y, new int[] {width, height}, argb);
+	}
+
+	/**
+	 * Same as <code>fillOval</code> on the graphics with the color.
+	 */
+	public void fillOval(int x, int y, int width, int height, int argb) {
+		if(width >= 0 && height >= 0)
+			draw(FILL_OVAL, x, y, new int[] {width, height}, argb);
+	}
+
+	/**
+	 * Same as <code>drawLine</code> on the graphics with the color.
+	 */
+	public void drawLine(int x1, int y1, int x2, int y2, int argb) {
+		draw(DRAW_LINE, x1, y1, new int[] {x2 - x1, y2 - y1}, argb);
+	}
+
+	/**
+	 * Same as drawing a <code>CubicCurve2D.Double</code> from (x1, y1) to (x2, y2) on the graphics with the color.
+	 */
+	public void drawCurve(int x1, int y1, int ctrlx1, int ctrly1, int ctrlx2, int ctrly2, int x2, int y2, int argb) {
+		draw(DRAW_CURVE, x1, y1, new int[] {ctrlx1 - x1, ctrly1 - y1, ctrlx2 - x1, ctrly2 - y1, x2 - x1, y2 - y1}, argb);
+	}
+
+	/**
+	 * @return The amount of shapes drawn from a stamp made before.
+	 */
+	public int hits() {
+		return hits;
+	}
+
+	/**
+	 * @return The amount of shapes for which a stamp was made, or that were left to Java2D.
+	 */
+	public int misses() {
+		return misses;
+	}
+
+	/**
+	 * @return The amount of shapes kept, each having a stamp for each range it was drawn in.
+	 */
+	public int size() {
+		return stamps.size();
+	}
+
+	/**
+	 * @param geometry The sizes of an oval, or the other points of a line or a curve relative to (x, y).
+	 */
+	private void draw(int kind, int x, int y, int[] geometry, int argb) {
+		if(argb >>> 24 == 0)
+			return;
+		boolean antialias = graphics.getRenderingHint(RenderingHints.KEY_ANTIALIASING) == RenderingHints.VALUE_ANTIALIAS_ON;
+		boolean opaque = argb >>> 24 == 255;
+		if(antialias && !opaque) {
+			// the coverage can't be read back from a translucent drawing
+			misses++;
+			drawShape(kind, x, y, geometry, argb);
+			return;
+		}
+		Key key = new Key(kind, geometry, kind == FILL_OVAL ? null : graphics.getStroke(), antialias, opaque);
+		Shapes shapes = stamps.get(key);
+		if(shapes == null) {
+			shapes = new Shapes(bounds(kind, geometry, graphics.getStroke()));
+			stamps.put(key, shapes);
+		}
+		Rectangle bounds = shapes.bounds;
+		int left = x + bounds.x, top = y + bounds.y, right = left + bounds.width, bottom = top + bounds.height;
+		int rangeX = range(left, right), rangeY = range(top, bottom);
+		if(rangeX < 0 || rangeY < 0 || right > raster.width || bottom > raster.height) {
+			misses++;
+			drawShape(kind, x, y, geometry, argb);
+			return;
+		}
+		Stamp stamp = shapes.get(rangeX*32 + rangeY);
+		if(stamp == null) {
+			misses++;
+			stamp = makeStamp(kind, x, y, geometry, bounds, opaque ? 0xFFFFFFFF : 0x80FFFFFF);
+			shapes.add(rangeX*32 + rangeY, stamp);
+		} else {
+			hits++;
+		}
+		stamp.draw(raster, left, top, argb);
+	}
+
+	private void drawShape(int kind, int x, int y, int[] geometry, int argb) {
+		graphics.setColor(new Color(argb, true));
+		switch(kind) {
+		case DRAW_OVAL:
+			graphics.drawOval(x, y, geometry[0], geometry[1]);
+			break;
+		case FILL_OVAL:
+			graphics.fillOval(x, y, geometry[0], geometry[1]);
+			break;
+		case DRAW_LINE:
+			graphics.drawLine(x, y, x + geometry[0], y + geometry[1]);
+			break;
+		default:
+			graphics.draw(shape(kind, x, y, geometry));
+		}
+	}
+
+	private static Shape shape(int kind, int x, int y, int[] geometry) {
+		switch(kind) {
+		case DRAW_OVAL:
+		case FILL_OVAL:
+			return new Ellipse2D.Float(x, y, geometry[0], geometry[1]);
+		case DRAW_LINE:
+			return new Line2D.Float(x, y, x + geometry[0], y + geometry[1]);
+		default:
+			return new CubicCurve2D.Double(x, y, x + geometry[0], y + geometry[1], x + geometry[2], y + geometry[3],
+					x + geometry[4], y + geometry[5]);
+		}
+	}
+
+	/**
+	 * @return The pixels the shape can touch, relative to its position, with a pixel of margin.
+	 */
+	private static Rectangle bounds(int kind, int[] geometry, Stroke stroke) {
+		Shape shape = shape(kind, 0, 0, geometry);
+		Rectangle bounds = (kind == FILL_OVAL ? shape : stroke.createStrokedShape(shape)).getBounds();
+		bounds.grow(2, 2);
+		return bounds;
+	}
+
+	/**
+	 * @return The power of two range holding every coordinate from start to end, or -1 if there isn't one.
+	 */
+	private static int range(int start, int end) {
+		if(start < 1)
+			return -1;
+		int range = 31 - Integer.numberOfLeadingZeros(start);
+		return range == 31 - Integer.numberOfLeadingZeros(end) ? range : -1;
+	}
+
+	/**
+	 * Draws the shape on transparent pixels of the image, where it will be, and reads the coverage back.
+	 * @param argb Opaque or translucent white, as Java2D doesn't rasterize small shapes the same way for opaque and
+	 * translucent colors. Translucent shapes aren't antialiased, so the coverage of a pixel is then all or nothing.
+	 */
+	private Stamp makeStamp(int kind, int x, int y, int[] geometry, Rectangle bounds, int argb) {
+		int left = x + bounds.x, top = y + bounds.y;
+		int[] saved = new int[bounds.width*bounds.height];
+		for(int row = 0; row < bounds.height; row++) {
+			int offset = (top + row)*raster.width + left;
+			System.arraycopy(raster.pixels, offset, saved, row*bounds.width, bounds.width);
+			Arrays.fill(raster.pixels, offset, offset + bounds.width, 0);
+		}
+		drawShape(kind, x, y, geometry, argb);
+		int[] coverage = new int[saved.length];
+		for(int row = 0; row < bounds.height; row++) {
+			int offset = (top + row)*raster.width + left;
+			for(int i = 0; i < bounds.width; i++) {
+				int a = raster.pixels[offset + i] >>> 24;
+				coverage[row*bounds.width + i] = argb == 0xFFFFFFFF || a == 0 ? a : 255;
+			}
+			System.arraycopy(saved, row*bounds.width, raster.pixels, offset, bounds.width);
+		}
+		return new Stamp(bounds.width, bounds.height, coverage);
+	}
+
+	/**
+	 * The coverage of a shape, as runs of pixels with the same coverage on each row.
+	 */
+	private static class Stamp {
+		/** For each run, its row, its first pixel, its length and its coverage out of 255. */
+		final int[] runs;
+
+		Stamp(int width, int height, int[] coverage) {
+			int[] runs = new int[16];
+			int size = 0;
+			for(int row = 0; row < height; row++) {
+				int i = 0;
+				while(i < width) {
+					int c = coverage[row*width + i];
+					int start = i;
+					while(i < width && coverage[row*width + i] == c)
+						i++;
+					if(c == 0)
+						continue;
+					if(size + 4 > runs.length)
+						runs = Arrays.copyOf(runs, runs.length*2);
+					runs[size++] = row;
+					runs[size++] = start;
+					runs[size++] = i - start;
+					runs[size++] = c;
+				}
+			}
+			this.runs = Arrays.copyOf(runs, size);
+		}
+
+		void draw(IntRaster raster, int left, int top, int argb) {
+			int alpha = argb >>> 24;
+			if(alpha == 0)
+				return;
+			for(int r = 0; r < runs.length; r += 4) {
+				int coverage = runs[r + 3];
+				// the color of the shape, premultiplied, and its alpha, as Java2D scales them by the coverage
+				int a = mul8(coverage, alpha);
+				int red = mul8(coverage, mul8(alpha, (argb >> 16) & 0xFF));
+				int green = mul8(coverage, mul8(alpha, (argb >> 8) & 0xFF));
+				int blue = mul8(coverage, mul8(alpha, argb & 0xFF));
+				raster.blendRow(left + runs[r + 1], top + runs[r], runs[r + 2], a << 24 | red << 16 | green << 8 | blue,
+						a << 24 | (argb & 0xFFFFFF));
+			}
+		}
+
+		/**
+		 * a*b/255, rounded.
+		 */
+		private static int mul8(int a, int b) {
+			int t = a*b + 128;
+			return (t + (t >> 8)) >> 8;
+		}
+	}
+
+	/**
+	 * The stamps of one shape, for each power of two range of x and of y it was drawn in.
+	 * <br> A shape is rarely drawn in more than a few ranges, so they are kept in small arrays and searched one by one.
+	 */
+	private static class Shapes {
+		final Rectangle bounds;
+		private int[] ranges = new int[2];
+		private Stamp[] stamps = new Stamp[2];
+		private int size;
+
+		Shapes(Rectangle bounds) {
+			this.bounds = bounds;
+		}
+
+		/**
+		 * @return The stamp for the pair of ranges, or null if there is none yet.
+		 */
+		Stamp get(int range) {
+			for(int i = 0; i < size; i++)
+				if(ranges[i] == range)
+					return stamps[i];
+			return null;
+		}
+
+		void add(int range, Stamp stamp) {
+			if(size == ranges.length) {
+				ranges = Arrays.copyOf(ranges, size*2);
+				stamps = Arrays.copyOf(stamps, size*2);
+			}
+			ranges[size] = range;
+			stamps[size++] = stamp;
+		}
+	}
+
+	private static class Key {
+		final int kind;
+		final int[] geometry;
+		final Stroke stroke;
+		final boolean antialias, opaque;
+
+		Key(int kind, int[] geometry, Stroke stroke, boolean antialias, boolean opaque) {
+			this.kind = kind;
+			this.geometry = geometry;
+			this.stroke = stroke;
+			this.antialias = antialias;
+			this.opaque = opaque;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if(!(o instanceof Key))
+				return false;
+			Key k = (Key) o;
+			return kind == k.kind && Arrays.equals(geometry, k.geometry) && antialias == k.antialias && opaque == k.opaque
+					&& Objects.equals(stroke, k.stroke);
+		}
+
+		@Override
+		public int hashCode() {
+			return (kind*31 + Arrays.hashCode(geometry))*31 + Objects.hashCode(stroke) + (antialias ? 2 : 0) + (opaque ? 1 : 0);
+		}
+	}
+}
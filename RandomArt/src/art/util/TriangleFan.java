@@ -0,0 +1,156 @@
+package art.util;
+
+import java.util.Arrays;
+
+/**
+ * Draws many translucent triangles sharing one corner, like the rings of a stain around its center, straight into an
+ * {@link IntRaster}.
+ * <br> Triangles are added one by one and then all filled by one call to {@link #fill(int, int)}, in the order they
+ * were added. The result is the same as <code>fillPolygon</code> with each triangle and its color, without antialiasing:
+ * <br> - the pixels of a triangle are found by scanlines, stepping along each edge the way Java2D does, with the same
+ * float rounding, so the same pixels are covered,
+ * <br> - each color is premultiplied by its alpha once per triangle, and each scanline is drawn with
+ * {@link IntRaster#blendRow(int, int, int, int, int)}, which gives the same levels as the Java2D source-over blend.
+ * <br> Not thread safe, each render should have its own.
+ */
+public class TriangleFan {
+
+	/** The fractional part of an x coordinate is kept as an int, 1 being this value plus one. */
+	private static final int ERROR_STEP = 0x7FFFFFFF;
+
+	private final IntRaster raster;
+	private int[] coordinates = new int[4*64];
+	private int[] colors = new int[64];
+	private int size;
+
+	private final Edge left = new Edge(), right = new Edge(), shortEdge = new Edge();
+
+	public TriangleFan(IntRaster raster) {
+		this.raster = raster;
+	}
+
+	/**
+	 * Adds the triangle between the shared corner, (x1, y1) and (x2, y2).
+	 * @param argb The non premultiplied color of the triangle.
+	 */
+	public void add(int x1, int y1, int x2, int y2, int argb) {
+		if(size == colors.length) {
+			colors = Arrays.copyOf(colors, size*2);
+			coordinates = Arrays.copyOf(coordinates, size*8);
+		}
+		coordinates[4*size] = x1;
+		coordinates[4*size + 1] = y1;
+		coordinates[4*size + 2] = x2;
+		coordinates[4*size + 3] = y2;
+		colors[size++] = argb;
+	}
+
+	/**
+	 * @return The amount of triangles added since the last fill.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Fills every triangle added since the last fill, in the order they were added, with (cx, cy) as their shared corner.
+	 */
+	public void fill(int cx, int cy) {
+		for(int i = 0; i < size; i++)
+			fillTriangle(cx, cy, coordinates[4*i], coordinates[4*i + 1], coordinates[4*i + 2], coordinates[4*i + 3], colors[i]);
+		size = 0;
+	}
+
+	/**
+	 * Fills one triangle, like <code>fillPolygon</code> would with the color.
+	 */
+	public void fillTriangle(int x0, int y0, int x1, int y1, int x2, int y2, int argb) {
+		int alpha = argb >>> 24;
+		if(alpha == 0)
+			return;
+		// sort the corners from top to bottom
+		if(y1 < y0) {
+			int t = x0; x0 = x1; x1 = t;
+			t = y0; y0 = y1; y1 = t;
+		}
+		if(y2 < y1) {
+			int t = x1; x1 = x2; x2 = t;
+			t = y1; y1 = y2; y2 = t;
+			if(y1 < y0) {
+				t = x0; x0 = x1; x1 = t;
+				t = y0; y0 = y1; y1 = t;
+			}
+		}
+		// the long edge crosses every scanline of the triangle, the two others share them
+		if(!left.set(x0, y0, x2, y2))
+			return;
+		boolean upper = right.set(x0, y0, x1, y1);
+		boolean lower = shortEdge.set(x1, y1, x2, y2);
+		Edge other = upper ? right : shortEdge;
+
+		int premultiplied = IntRaster.premultiply(argb);
+		int top = Math.max(left.y, 0), bottom = Math.min(left.lastY, raster.height);
+		for(int y = top; y < bottom; y++) {
+			if(other == right && y >= right.lastY) {
+				if(!lower)
+					break;
+				other = shortEdge;
+			}
+			int a = left.xAt(y), b = other.xAt(y);
+			int from = Math.max(Math.min(a, b), 0);
+			int to = Math.min(Math.max(a, b), raster.width);
+			raster.blendRow(from, y, to - from, premultiplied, argb);
+		}
+	}
+
+	/**
+	 * An edge going down, giving the first pixel right of it on each scanline, the pixel centers being the samples.
+	 * <br> Like Java2D, integer corners are moved by a quarter pixel, and the edge is walked with a float start and an
+	 * int error term, so the same pixels end up on each side of it.
+	 */
+	private static class Edge {
+		/** The first scanline, the one after the last, and the scanline x is at. */
+		int y, lastY, currentY;
+		int x, error, stepX, stepError;
+
+		/**
+		 * @return false if the edge doesn't cross any scanline.
+		 */
+		boolean set(int xStart, int yStart, int xEnd, int yEnd) {
+			float x0 = xStart + 0.25f, y0 = yStart + 0.25f, x1 = xEnd + 0.25f, y1 = yEnd + 0.25f;
+			y = (int) Math.ceil(y0 - 0.5f);
+			lastY = (int) Math.ceil(y1 - 0.5f);
+			if(y >= lastY)
+				return false;
+			float dx = x1 - x0, dy = y1 - y0;
+			float slope = dx / dy;
+			float yBump = y + 0.5f - y0;
+			x0 += yBump * dx / dy;
+			x = (int) Math.ceil(x0 - 0.5f);
+			stepX = (int) Math.floor(slope);
+			stepError = fraction(slope - Math.floor(slope));
+			error = fraction(x0 - (x - 0.5f));
+			currentY = y;
+			return true;
+		}
+
+		/**
+		 * @return The x of the first pixel whose center is right of the edge on the scanline, which can't be above the
+		 * last one asked.
+		 */
+		int xAt(int row) {
+			if(row > currentY) {
+				long steps = row - currentY;
+				long sum = error + steps*stepError;
+				x += (int) (steps*stepX + (sum >> 31));
+				error = (int) (sum & ERROR_STEP);
+				currentY = row;
+			}
+			return x;
+		}
+
+		private static int fraction(double f) {
+			return (int) (f * (double) ERROR_STEP);
+		}
+	}
+}
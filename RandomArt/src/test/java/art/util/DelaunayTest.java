@@ -0,0 +1,126 @@
+package art.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+public class DelaunayTest {
+
+	@Test
+	public void poissonPoints() {
+		check(PoissonDisk.poissonDiskPoints(42, 20, 400));
+	}
+
+	@Test
+	public void manyDuplicates() {
+		// 500 points on 100 positions
+		Random rand = new Random(7);
+		PointSet points = new PointSet();
+		for(int i = 0; i < 500; i++)
+			points.add(rand.nextInt(10), rand.nextInt(10));
+		check(points);
+	}
+
+	@Test
+	public void collinearGrid() {
+		// every cell of the grid has its 4 corners on one circle
+		PointSet points = new PointSet();
+		for(int y = 0; y < 15; y++)
+			for(int x = 0; x < 15; x++)
+				points.add(x*10, y*10);
+		check(points);
+	}
+
+	@Test
+	public void pointsOnALine() {
+		PointSet points = new PointSet();
+		for(int i = 0; i < 10; i++)
+			points.add(i*3, i*2);
+		Delaunay delaunay = new Delaunay(points);
+		assertEquals(0, delaunay.triangleCount());
+		double[] xs = new double[16], ys = new double[16];
+		for(int i = 0; i < points.size(); i++)
+			assertEquals(-1, delaunay.voronoiCell(i, xs, ys));
+	}
+
+	/**
+	 * Checks that no point is strictly inside the circumcircle of a triangle, that half-edges are linked both ways, and
+	 * that neighbours and Voronoi cells agree with the edges, hull points included.
+	 */
+	private static void check(PointSet points) {
+		Delaunay delaunay = new Delaunay(points);
+		int n = points.size();
+		assertTrue(delaunay.triangleCount() > 0);
+
+		for(int t = 0; t < delaunay.triangleCount(); t++) {
+			int a = delaunay.point(3*t), b = delaunay.point(3*t + 1), c = delaunay.point(3*t + 2);
+			assertTrue(orient(points, a, b, c) != 0, "Triangle " + t + " is flat");
+			for(int p = 0; p < n; p++)
+				assertFalse(inCircle(points, a, b, c, p), "Point " + p + " is inside the circumcircle of triangle " + t);
+		}
+
+		for(int e = 0; e < 3*delaunay.triangleCount(); e++) {
+			int o = delaunay.opposite(e);
+			if(o < 0)
+				continue;
+			assertEquals(e, delaunay.opposite(o));
+			assertEquals(delaunay.point(e), delaunay.point(Delaunay.next(o)));
+		}
+
+		@SuppressWarnings("unchecked")
+		Set<Integer>[] linked = new Set[n];
+		for(int i = 0; i < n; i++)
+			linked[i] = new TreeSet<>();
+		int[] edges = delaunay.edges();
+		for(int i = 0; i < edges.length; i += 2) {
+			linked[edges[i]].add(edges[i + 1]);
+			linked[edges[i + 1]].add(edges[i]);
+		}
+		Set<Integer> hull = new TreeSet<>();
+		for(int p : delaunay.hull())
+			hull.add(p);
+
+		int[] neighbours = new int[n];
+		double[] xs = new double[n], ys = new double[n];
+		for(int i = 0; i < n; i++) {
+			int count = delaunay.neighbours(i, neighbours);
+			Set<Integer> found = new TreeSet<>();
+			for(int k = 0; k < count; k++)
+				found.add(neighbours[k]);
+			assertEquals(count, found.size(), "Point " + i + " has a neighbour twice");
+			assertEquals(linked[i], found, "Neighbours of point " + i);
+
+			int cell = delaunay.voronoiCell(i, xs, ys);
+			if(hull.contains(i) || linked[i].isEmpty())
+				assertEquals(-1, cell, "Cell of point " + i + " should be unbounded");
+			else
+				assertEquals(count, cell, "Cell of point " + i + " should have a vertex per neighbour");
+		}
+	}
+
+	private static long orient(PointSet points, int a, int b, int c) {
+		long ax = points.x(a), ay = points.y(a);
+		long bx = points.x(b), by = points.y(b);
+		long cx = points.x(c), cy = points.y(c);
+		return (bx - ax) * (cy - ay) - (by - ay) * (cx - ax);
+	}
+
+	/**
+	 * Exact test, whatever the orientation of the triangle.
+	 */
+	private static boolean inCircle(PointSet points, int a, int b, int c, int p) {
+		long px = points.x(p), py = points.y(p);
+		long dx = points.x(a) - px, dy = points.y(a) - py;
+		long ex = points.x(b) - px, ey = points.y(b) - py;
+		long fx = points.x(c) - px, fy = points.y(c) - py;
+		long ap = dx*dx + dy*dy, bp = ex*ex + ey*ey, cp = fx*fx + fy*fy;
+		long det = dx * (ey*cp - bp*fy) - dy * (ex*cp - bp*fx) + ap * (ex*fy - ey*fx);
+		return Long.signum(det) * Long.signum(orient(points, a, b, c)) > 0;
+	}
+}
@@ -0,0 +1,51 @@
+package art.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class IntRasterTest {
+
+	@Test
+	public void blendRowMatchesJava2DOnRgbImages() {
+		checkBlendRow(BufferedImage.TYPE_INT_RGB);
+	}
+
+	@Test
+	public void blendRowMatchesJava2DOnOpaqueArgbImages() {
+		checkBlendRow(BufferedImage.TYPE_INT_ARGB);
+	}
+
+	/**
+	 * Draws the same random translucent runs with Java2D and with blendRow, over random opaque pixels.
+	 */
+	private static void checkBlendRow(int type) {
+		Random rand = new Random(3);
+		BufferedImage expected = new BufferedImage(64, 64, type);
+		BufferedImage actual = new BufferedImage(64, 64, type);
+		int[] background = IntRaster.pixels(expected);
+		for(int i = 0; i < background.length; i++)
+			background[i] = 0xFF000000 | rand.nextInt(1 << 24);
+		System.arraycopy(background, 0, IntRaster.pixels(actual), 0, background.length);
+
+		Graphics2D graphics = expected.createGraphics();
+		IntRaster raster = new IntRaster(actual);
+		for(int i = 0; i < 2000; i++) {
+			int argb = rand.nextInt();
+			int x = rand.nextInt(80) - 8, y = rand.nextInt(70) - 3, length = rand.nextInt(40);
+			graphics.setColor(new Color(argb, true));
+			graphics.fillRect(x, y, length, 1);
+			raster.blendRow(x, y, length, IntRaster.premultiply(argb), argb);
+		}
+		graphics.dispose();
+
+		for(int y = 0; y < 64; y++)
+			for(int x = 0; x < 64; x++)
+				assertEquals(Integer.toHexString(expected.getRGB(x, y)), Integer.toHexString(actual.getRGB(x, y)), "Pixel " + x + ", " + y);
+	}
+}
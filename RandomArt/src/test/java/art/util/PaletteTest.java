@@ -0,0 +1,33 @@
+package art.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.awt.Color;
+
+import org.junit.jupiter.api.Test;
+
+public class PaletteTest {
+
+	@Test
+	public void hueTableIsExactOnItsSteps() {
+		Palette.HueTable hues = new Palette.HueTable(0.25f, 0.75f, 11, 0.8f, 0.9f);
+		for(int i = 0; i <= 10; i++) {
+			float hue = 0.25f + 0.5f * i / 10;
+			assertEquals(Color.getHSBColor(hue, 0.8f, 0.9f).getRGB(), hues.get(hue), "Step " + i);
+		}
+		// between two steps, the closest one
+		assertEquals(hues.get(0.3f), hues.get(0.31f));
+		assertEquals(hues.get(0.35f), hues.get(0.34f));
+	}
+
+	@Test
+	public void hueTableGoingDownAndClamped() {
+		Palette.HueTable hues = new Palette.HueTable(1.2f, -0.2f, 8, 1, 1);
+		assertEquals(Palette.hsb(1.2f, 1, 1), hues.get(1.2f));
+		assertEquals(Palette.hsb(-0.2f, 1, 1), hues.get(-0.2f));
+		assertEquals(hues.get(1.2f), hues.get(5));
+		assertEquals(hues.get(-0.2f), hues.get(-5));
+		assertThrows(IllegalArgumentException.class, () -> new Palette.HueTable(0, 1, 1, 1, 1));
+	}
+}
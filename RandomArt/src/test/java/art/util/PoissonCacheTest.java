@@ -0,0 +1,132 @@
+package art.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PoissonCacheTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void roundTripShortCoordinates() throws IOException {
+		PoissonCache.Key key = new PoissonCache.Key(-5, 12, 300);
+		PointSet points = PoissonDisk.poissonDiskPoints(key.seed, key.r, key.size);
+		File file = directory.resolve("short.bin").toFile();
+		PoissonCache.write(file, key, points);
+		assertSamePoints(points, PoissonCache.read(file, key));
+	}
+
+	@Test
+	public void roundTripIntCoordinates() throws IOException {
+		// past 65536, coordinates take 4 bytes
+		PoissonCache.Key key = new PoissonCache.Key(Long.MAX_VALUE, 3, 100_000);
+		PointSet points = new PointSet();
+		points.add(0, 0);
+		points.add(99_999, 65_536);
+		points.add(70_000, 12);
+		File file = directory.resolve("int.bin").toFile();
+		PoissonCache.write(file, key, points);
+		assertSamePoints(points, PoissonCache.read(file, key));
+	}
+
+	@Test
+	public void roundTripNoPoints() throws IOException {
+		PoissonCache.Key key = new PoissonCache.Key(1, 10, 64);
+		File file = directory.resolve("empty.bin").toFile();
+		PoissonCache.write(file, key, new PointSet());
+		assertEquals(0, PoissonCache.read(file, key).size());
+	}
+
+	@Test
+	public void rejectsOtherKeysAndBrokenFiles() throws IOException {
+		PoissonCache.Key key = new PoissonCache.Key(42, 8, 200);
+		File file = directory.resolve("points.bin").toFile();
+		PoissonCache.write(file, key, PoissonDisk.poissonDiskPoints(key.seed, key.r, key.size));
+		assertThrows(IOException.class, () -> PoissonCache.read(file, new PoissonCache.Key(43, 8, 200)));
+
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length - 1));
+		assertThrows(IOException.class, () -> PoissonCache.read(file, key));
+	}
+
+	@Test
+	public void readsBackFromDisk() {
+		File folder = directory.toFile();
+		PointSet sampled = new PoissonCache(1 << 20, folder).points(42, 10, 256);
+		PoissonCache cache = new PoissonCache(1 << 20, folder);
+		PointSet read = cache.points(42, 10, 256);
+		assertEquals(1, cache.diskHits());
+		assertEquals(0, cache.misses());
+		assertSamePoints(sampled, read);
+		assertSamePoints(PoissonDisk.poissonDiskPoints(42, 10, 256), read);
+	}
+
+	@Test
+	public void hitsInMemory() {
+		PoissonCache cache = new PoissonCache(1 << 20, null);
+		PointSet sampled = cache.points(42, 10, 256);
+		PointSet kept = cache.points(42, 10, 256);
+		assertEquals(1, cache.misses());
+		assertEquals(1, cache.hits());
+		assertEquals(sampled.size() * 8L + 128, cache.bytes());
+		assertSamePoints(sampled, kept);
+		assertSamePoints(PoissonDisk.poissonDiskPoints(42, 10, 256), kept);
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsedOverBudget() {
+		long[] setBytes = new long[4];
+		for(int seed = 1; seed <= 3; seed++)
+			setBytes[seed] = PoissonDisk.poissonDiskPoints(seed, 10, 200).size() * 8L + 128;
+		// room for any 2 of the sets, not 3
+		PoissonCache cache = new PoissonCache(setBytes[1] + setBytes[2] + setBytes[3] - 1, null);
+		cache.points(1, 10, 200);
+		cache.points(2, 10, 200);
+		cache.points(1, 10, 200);
+		cache.points(3, 10, 200);
+		assertEquals(3, cache.misses());
+		assertEquals(setBytes[1] + setBytes[3], cache.bytes());
+
+		// 2 was the least recently used
+		cache.points(1, 10, 200);
+		cache.points(3, 10, 200);
+		assertEquals(3, cache.hits());
+		cache.points(2, 10, 200);
+		assertEquals(4, cache.misses());
+
+		PoissonCache none = new PoissonCache(0, null);
+		none.points(1, 10, 200);
+		none.points(1, 10, 200);
+		assertEquals(2, none.misses());
+		assertEquals(0, none.bytes());
+	}
+
+	@Test
+	public void givesCopies() {
+		PoissonCache cache = new PoissonCache(1 << 20, null);
+		PointSet expected = PoissonDisk.poissonDiskPoints(42, 10, 256);
+		cache.points(42, 10, 256).translate(5, 5);
+		PointSet hit = cache.points(42, 10, 256);
+		assertSamePoints(expected, hit);
+		hit.translate(-3, 7);
+		assertSamePoints(expected, cache.points(42, 10, 256));
+	}
+
+	private static void assertSamePoints(PointSet expected, PointSet actual) {
+		assertEquals(expected.size(), actual.size(), "Amount of points");
+		for(int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.x(i), actual.x(i), "x of point " + i);
+			assertEquals(expected.y(i), actual.y(i), "y of point " + i);
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package art.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+public class PoissonDiskTest {
+
+	private static final int[] RADII = {3, 7, 20, 64};
+
+	@Test
+	public void parallelIsTheSameOnAnyAmountOfThreads() {
+		ForkJoinPool one = new ForkJoinPool(1), four = new ForkJoinPool(4);
+		try {
+			for(int r : RADII) {
+				int size = size(r);
+				PointSet single = PoissonDisk.poissonDiskPointsParallel(42, r, size, one);
+				PointSet several = PoissonDisk.poissonDiskPointsParallel(42, r, size, four);
+				assertEquals(single.size(), several.size(), "Amount of points for r = " + r);
+				for(int i = 0; i < single.size(); i++) {
+					assertEquals(single.x(i), several.x(i), "x of point " + i + " for r = " + r);
+					assertEquals(single.y(i), several.y(i), "y of point " + i + " for r = " + r);
+				}
+			}
+		} finally {
+			one.shutdown();
+			four.shutdown();
+		}
+	}
+
+	@Test
+	public void parallelKeepsTheMinimalDistance() {
+		ForkJoinPool four = new ForkJoinPool(4);
+		try {
+			for(int r : RADII) {
+				int size = size(r);
+				PointSet points = PoissonDisk.poissonDiskPointsParallel(7, r, size, four);
+				assertTrue(points.size() > 1, "No points for r = " + r);
+				for(int i = 0; i < points.size(); i++)
+					assertTrue(points.x(i) >= 0 && points.x(i) < size && points.y(i) >= 0 && points.y(i) < size, "Point " + i + " is out of the square");
+				checkDistances(points, size, r, i -> r);
+			}
+		} finally {
+			four.shutdown();
+		}
+	}
+
+	@Test
+	public void variableRadiusOnARamp() {
+		// from 4 on the left to 30 on the right
+		checkVariableRadius(600, 4, 30, (x, y) -> 4 + 26.0 * x / 600);
+	}
+
+	@Test
+	public void variableRadiusOnACheckerboard() {
+		// squares of 100 pixels, the radius jumping from 5 to 25 on their sides
+		checkVariableRadius(600, 5, 25, (x, y) -> (x/100 + y/100) % 2 == 0 ? 5 : 25);
+	}
+
+	@Test
+	public void variableRadiusIsDeterministic() {
+		PoissonDisk.Radius radius = (x, y) -> 3 + Math.abs(x - y) / 20.0;
+		PointSet first = PoissonDisk.poissonDiskPoints(42, 3, 40, 500, radius);
+		PointSet second = PoissonDisk.poissonDiskPoints(42, 3, 40, 500, radius);
+		assertEquals(first.size(), second.size(), "Amount of points");
+		for(int i = 0; i < first.size(); i++) {
+			assertEquals(first.x(i), second.x(i), "x of point " + i);
+			assertEquals(first.y(i), second.y(i), "y of point " + i);
+		}
+	}
+
+	private static void checkVariableRadius(int size, int minR, int maxR, PoissonDisk.Radius radius) {
+		PointSet points = PoissonDisk.poissonDiskPoints(42, minR, maxR, size, radius);
+		assertTrue(points.size() > 1, "No points");
+		checkDistances(points, size, maxR, i -> Math.max(minR, Math.min(maxR, radius.at(points.x(i), points.y(i)))));
+	}
+
+	/**
+	 * Big enough for at least 3 tiles on each side, so that tiles of every phase touch each other.
+	 */
+	private static int size(int r) {
+		return Math.max(700, 16*r);
+	}
+
+	private interface PointRadius {
+		double of(int point);
+	}
+
+	/**
+	 * Checks that no two points are closer than the bigger of their radii, looking only at the points in the cells around
+	 * each point, the cells being as big as the biggest radius.
+	 */
+	private static void checkDistances(PointSet points, int size, double maxR, PointRadius radius) {
+		int cellSize = (int) Math.ceil(maxR), cells = (size + cellSize - 1) / cellSize;
+		int[] first = new int[cells * cells + 1];
+		for(int i = 0; i < points.size(); i++)
+			first[points.y(i) / cellSize * cells + points.x(i) / cellSize + 1]++;
+		for(int c = 0; c < cells * cells; c++)
+			first[c + 1] += first[c];
+		int[] sorted = new int[points.size()], filled = first.clone();
+		for(int i = 0; i < points.size(); i++)
+			sorted[filled[points.y(i) / cellSize * cells + points.x(i) / cellSize]++] = i;
+
+		for(int i = 0; i < points.size(); i++) {
+			int cx = points.x(i) / cellSize, cy = points.y(i) / cellSize;
+			for(int gy = Math.max(0, cy - 1); gy <= Math.min(cells - 1, cy + 1); gy++) {
+				for(int gx = Math.max(0, cx - 1); gx <= Math.min(cells - 1, cx + 1); gx++) {
+					int c = gy * cells + gx;
+					for(int k = first[c]; k < first[c + 1]; k++) {
+						int j = sorted[k];
+						if(j <= i)
+							continue;
+						double min = Math.max(radius.of(i), radius.of(j));
+						assertTrue(points.dist2(i, j) >= min * min,
+								"Points " + i + " and " + j + " are closer than " + min);
+					}
+				}
+			}
+		}
+	}
+}
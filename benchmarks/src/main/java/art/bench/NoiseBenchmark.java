@@ -0,0 +1,80 @@
+package art.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import art.util.OpenSimplexNoise;
+
+/**
+ * OpenSimplexNoise over a 256x256 grid of points, with the 2D, 3D and 4D evaluations and the bulk 2D one.
+ * <br> Each benchmark sums the values, so the score is the time for the whole grid.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NoiseBenchmark {
+
+	private static final int GRID = 256;
+	private static final double STEP = 1/19.0;
+
+	private OpenSimplexNoise noise;
+	private double[] xs, ys, out;
+
+	@Setup
+	public void setup() {
+		noise = new OpenSimplexNoise(42);
+		xs = new double[GRID];
+		ys = new double[GRID];
+		for(int i = 0; i < GRID; i++) {
+			xs[i] = i*STEP;
+			ys[i] = i*STEP;
+		}
+		out = new double[GRID*GRID];
+	}
+
+	@Benchmark
+	public double eval2D() {
+		double sum = 0;
+		for(int y = 0; y < GRID; y++)
+			for(int x = 0; x < GRID; x++)
+				sum += noise.eval(xs[x], ys[y]);
+		return sum;
+	}
+
+	@Benchmark
+	public double[] eval2DBulk() {
+		noise.eval(xs, ys, out, 0);
+		return out;
+	}
+
+	@Benchmark
+	public double eval3D() {
+		double sum = 0;
+		for(int y = 0; y < GRID; y++)
+			for(int x = 0; x < GRID; x++)
+				sum += noise.eval(xs[x], ys[y], 0.5);
+		return sum;
+	}
+
+	@Benchmark
+	public double eval4D() {
+		double sum = 0;
+		for(int y = 0; y < GRID; y++)
+			for(int x = 0; x < GRID; x++)
+				sum += noise.eval(xs[x], ys[y], 0.5, 0.25);
+		return sum;
+	}
+}
@@ -0,0 +1,67 @@
+package art.bench;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import art.Piece;
+import art.RenderContext;
+import art.util.PoissonCache;
+
+/**
+ * Time to generate a whole piece, for every piece of art.pieces, at a few sizes and fixed seeds.
+ * <br> Run a subset with, for example: <code>java -jar benchmarks/target/benchmarks.jar PieceBenchmark -p piece=Stains -p size=512</code>
+ * <br> Poisson points are sampled on every call unless run with <code>-p poissonCache=true</code>, in which case they are
+ * only sampled by the first one, as when rendering the same seed again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PieceBenchmark {
+
+	@Param({
+		"AngryCells", "Caves", "Cells", "Circle", "Connect", "Dissolve", "Dots", "Expand", "FillCells", "Flat3D",
+		"Glyphs", "Gradient", "HalfCircle", "Ikea", "ImageCells", "Lines", "MultLines", "Orbit", "SandTriangles", "SexyNoise",
+		"Spiral", "Stains", "Triangle", "Worm"
+	})
+	public String piece;
+
+	@Param({"256", "512", "1024"})
+	public int size;
+
+	@Param({"1", "42"})
+	public long seed;
+
+	@Param({"false"})
+	public boolean poissonCache;
+
+	private Piece instance;
+	private RenderContext context;
+
+	@Setup(Level.Trial)
+	public void setup() throws ReflectiveOperationException {
+		instance = Class.forName("art.pieces." + piece).asSubclass(Piece.class).getDeclaredConstructor().newInstance();
+		context = new RenderContext(seed, size);
+		PoissonCache.setShared(new PoissonCache(poissonCache ? 64L << 20 : 0, null));
+	}
+
+	@Benchmark
+	public BufferedImage generate() {
+		return instance.generate(context);
+	}
+}
@@ -0,0 +1,62 @@
+package art.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import art.util.PointSet;
+import art.util.PoissonDisk;
+import art.util.PoissonDisk.PVector;
+
+/**
+ * Poisson disk sampling of a square, for a few minimum distances, as a list of PVector, as a PointSet, as a PointSet
+ * sampled by tiles on the common fork-join pool, and with a radius going from r in the center to 4r in the corners.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PoissonBenchmark {
+
+	@Param({"1024"})
+	public int size;
+
+	@Param({"5", "10", "40"})
+	public int r;
+
+	@Param({"42"})
+	public long seed;
+
+	@Benchmark
+	public List<PVector> sampling() {
+		return PoissonDisk.poissonDiskSampling(seed, r, size);
+	}
+
+	@Benchmark
+	public PointSet points() {
+		return PoissonDisk.poissonDiskPoints(seed, r, size);
+	}
+
+	@Benchmark
+	public PointSet parallel() {
+		return PoissonDisk.poissonDiskPointsParallel(seed, r, size);
+	}
+
+	@Benchmark
+	public PointSet variable() {
+		double corner = Math.hypot(size/2, size/2);
+		return PoissonDisk.poissonDiskPoints(seed, r, 4*r, size, (x, y) -> r * (1 + 3 * Math.hypot(x - size/2, y - size/2) / corner));
+	}
+}